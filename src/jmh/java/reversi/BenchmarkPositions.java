@@ -0,0 +1,58 @@
+package reversi;
+
+import java.util.Random;
+
+/**
+ * Positions the benchmarks run on. Boards are written row by row, O for white, X for black and - for empty.
+ */
+final class BenchmarkPositions {
+
+    static final String START = "---------------------------OX------XO---------------------------";
+
+    // reached after 20 random moves, black to move
+    static final String[] MIDGAME = {
+            "---------X---X----XXXX----XXXO---OXXOOO--X-OOOX-----OX------X---",
+            "------------OOO---X--XO----XOX---XXXOXXX--O-OX----O-XXX------O--",
+            "------O---O-OOO----OOOO---XXXOXX--XXO-----XOX-----O-OX----------",
+            "-------X--O--OXX---OOOO----OXOOX--OOOOO----OXX------O-X---------"
+    };
+
+    private BenchmarkPositions() {
+    }
+
+    /**
+     * Returns the pieces of the board indexed by player - 1, like the search keeps them.
+     */
+    static long[] parse(String position) {
+        return BatchAnalysis.parseBoard(position);
+    }
+
+    /**
+     * Returns the boards met along random games played one after another, the same ones every time.
+     */
+    static long[][] randomPositions(int count) {
+        Random random = new Random(count);
+        long[][] positions = new long[count][];
+        long[] board = parse(START);
+        int player = Reversi.BLACK;
+        for (int i = 0; i < count; i++) {
+            long moves = Reversi.getValidMoves(board, player);
+            if (moves == 0) {
+                player = Reversi.opponent(player);
+                moves = Reversi.getValidMoves(board, player);
+            }
+            if (moves == 0) {
+                board = parse(START);
+                player = Reversi.BLACK;
+                moves = Reversi.getValidMoves(board, player);
+            }
+            for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                moves &= moves - 1;
+            }
+            Reversi.makeMove(board, player, Long.numberOfTrailingZeros(moves));
+            player = Reversi.opponent(player);
+            positions[i] = board.clone();
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,66 @@
+package reversi;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Evaluations per second of each evaluator over boards from all stages of the game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({"evaluateBoard", "evaluateBoardWithWeights", "evaluateBoardWithWeightsNoPenalties", "patterns"})
+    public String evaluatorName;
+
+    private Evaluator evaluator;
+    private long[][] positions;
+
+    @Setup
+    public void setUp() {
+        switch (evaluatorName) {
+            case "evaluateBoard":
+                evaluator = Reversi::evaluateBoard;
+                break;
+            case "evaluateBoardWithWeights":
+                evaluator = Reversi::evaluateBoardWithWeights;
+                break;
+            case "evaluateBoardWithWeightsNoPenalties":
+                evaluator = Reversi::evaluateBoardWithWeightsNoPenalties;
+                break;
+            case "patterns":
+                evaluator = Reversi.evaluator(5, 0);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown evaluator: " + evaluatorName);
+        }
+        positions = BenchmarkPositions.randomPositions(POSITIONS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public int evaluate() {
+        int sum = 0;
+        for (long[] position : positions) {
+            sum += evaluator.evaluate(position[0], position[1]);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,97 @@
+package reversi;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Counts the leaves of the game tree to a fixed depth with the move generation of the search.
+ * The counts are known, so a wrong count fails the benchmark before it is measured.
+ * A pass counts as a move; a game that ended before the depth counts as one leaf.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    public enum Position {
+        START(BenchmarkPositions.START, 8, 390216),
+        MIDGAME_1(BenchmarkPositions.MIDGAME[0], 5, 237188),
+        MIDGAME_2(BenchmarkPositions.MIDGAME[1], 5, 225262),
+        MIDGAME_3(BenchmarkPositions.MIDGAME[2], 5, 279301);
+
+        private final String board;
+        private final int depth;
+        private final long leaves;
+
+        Position(String board, int depth, long leaves) {
+            this.board = board;
+            this.depth = depth;
+            this.leaves = leaves;
+        }
+    }
+
+    @Param
+    public Position position;
+
+    private long[] start;
+    // one board per ply, so counting allocates nothing
+    private long[][] boards;
+
+    @Setup
+    public void setUp() {
+        start = BenchmarkPositions.parse(position.board);
+        boards = new long[position.depth + 1][];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new long[2];
+        }
+        long leaves = perft();
+        if (leaves != position.leaves) {
+            throw new IllegalStateException("Perft of " + position + " is " + leaves + " instead of " + position.leaves);
+        }
+    }
+
+    @Benchmark
+    public long perft() {
+        boards[position.depth][0] = start[0];
+        boards[position.depth][1] = start[1];
+        return perft(Reversi.BLACK, position.depth, false);
+    }
+
+    private long perft(int player, int depth, boolean passed) {
+        if (depth == 0) {
+            return 1;
+        }
+        long[] board = boards[depth];
+        long moves = Reversi.getValidMoves(board, player);
+        if (moves == 0) {
+            if (passed) {
+                return 1;
+            }
+            boards[depth - 1][0] = board[0];
+            boards[depth - 1][1] = board[1];
+            return perft(Reversi.opponent(player), depth - 1, true);
+        }
+        long leaves = 0;
+        long[] child = boards[depth - 1];
+        for (; moves != 0; moves &= moves - 1) {
+            child[0] = board[0];
+            child[1] = board[1];
+            Reversi.makeMove(child, player, Long.numberOfTrailingZeros(moves));
+            leaves += perft(Reversi.opponent(player), depth - 1, false);
+        }
+        return leaves;
+    }
+}
@@ -0,0 +1,75 @@
+package reversi;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Fixed depth searches of midgame positions, each from an empty transposition table.
+ * Reports searches and nodes per second; run it with -prof gc for the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"0", "1", "2", "3"})
+    public int position;
+
+    @Param({"6", "8"})
+    public int depth;
+
+    @Param({"ALPHA_BETA", "PVS", "ASPIRATION", "MTDF"})
+    public SearchAlgorithm algorithm;
+
+    private long[] board;
+    private SearchLimits limits;
+    private Random random;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+
+        // reported per second like the benchmark itself
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        board = BenchmarkPositions.parse(BenchmarkPositions.MIDGAME[position]);
+        limits = SearchLimits.depth(depth, algorithm);
+        random = new Random(0);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTranspositionTable() {
+        Reversi.clearTranspositionTable();
+    }
+
+    @Benchmark
+    public int search(Nodes nodes) {
+        SearchResult result = Reversi.search(board[Reversi.WHITE - 1], board[Reversi.BLACK - 1], Reversi.BLACK, limits, Reversi.evaluator(3, 0), random);
+        nodes.nodes += result.getNodes();
+        return result.getMove();
+    }
+}
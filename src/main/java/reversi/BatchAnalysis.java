@@ -0,0 +1,240 @@
+package reversi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analyses a stream of positions and writes the best move, score and search statistics of each one, in input order.
+ * Only a window of positions is read ahead of the oldest unfinished one, so files of any size run in bounded memory.
+ * <p>
+ * Text input has one position per line: the 64 cells row by row (O white, X black, - empty), a space and the side
+ * to move, O or X. Empty lines and lines starting with # are skipped.
+ * Binary input is a sequence of 17 byte records: white pieces and black pieces as big endian longs with bit i
+ * for move i + 1, then the side to move, 1 for white and 2 for black.
+ * <p>
+ * Output has one line per position: number, move (1 to 64, -1 when the side to move has to pass), score, depth,
+ * nodes and milliseconds; or the number followed by "error" and the reason.
+ * <p>
+ * Usage: BatchAnalysis [input file, - for stdin] [--binary] [--output file] [--jobs N] [--depth N] [--time millis]
+ * [--endgame N] [--ai 1-6]
+ */
+public final class BatchAnalysis {
+
+    private static final int RECORD_SIZE = 17;
+
+    private final SearchLimits limits;
+    private final int setup;
+    private final int jobs;
+
+    public BatchAnalysis(SearchLimits limits, int setup, int jobs) {
+        this.limits = limits;
+        this.setup = setup;
+        this.jobs = jobs;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String input = "-";
+        String output = null;
+        boolean binary = false;
+        int jobs = Runtime.getRuntime().availableProcessors();
+        int depth = 8;
+        long time = SearchLimits.UNLIMITED;
+        int endgame = 16;
+        int setup = 3;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--binary":
+                    binary = true;
+                    break;
+                case "--output":
+                    output = args[++i];
+                    break;
+                case "--jobs":
+                    jobs = Integer.parseInt(args[++i]);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--time":
+                    time = Long.parseLong(args[++i]);
+                    break;
+                case "--endgame":
+                    endgame = Integer.parseInt(args[++i]);
+                    break;
+                case "--ai":
+                    setup = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--")) {
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                    }
+                    input = args[i];
+            }
+        }
+
+        SearchLimits limits = new SearchLimits(depth, time, SearchLimits.UNLIMITED, endgame);
+        BatchAnalysis analysis = new BatchAnalysis(limits, setup, jobs);
+        try (InputStream in = input.equals("-") ? System.in : Files.newInputStream(Path.of(input));
+             Writer out = new BufferedWriter(output == null
+                     ? new OutputStreamWriter(System.out, StandardCharsets.UTF_8)
+                     : Files.newBufferedWriter(Path.of(output)))) {
+            analysis.run(binary ? binarySource(in) : textSource(in), out);
+        }
+    }
+
+    /**
+     * Positions to analyse, each as white pieces, black pieces and the side to move.
+     */
+    public interface Source {
+
+        /**
+         * Returns the next position or null at the end of the input. A position that cannot be read throws
+         * IllegalArgumentException; it is reported in its place and reading goes on with the next one.
+         */
+        long[] next() throws IOException;
+    }
+
+    public void run(Source source, Writer out) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(jobs);
+        // results in input order; reading stops while the window is full
+        ArrayDeque<Future<String>> window = new ArrayDeque<>();
+        int windowSize = jobs * 4;
+        try {
+            for (long number = 1; ; number++) {
+                long positionNumber = number;
+                try {
+                    long[] position = source.next();
+                    if (position == null) {
+                        break;
+                    }
+                    window.add(executor.submit(() -> analyse(positionNumber, position)));
+                } catch (IllegalArgumentException e) {
+                    window.add(CompletableFuture.completedFuture(positionNumber + " error " + e.getMessage()));
+                } catch (IOException e) {
+                    // the results of the positions read so far are not lost with the rest of the input
+                    while (!window.isEmpty()) {
+                        write(window.poll(), out);
+                    }
+                    throw e;
+                }
+                if (window.size() >= windowSize) {
+                    write(window.poll(), out);
+                }
+            }
+            while (!window.isEmpty()) {
+                write(window.poll(), out);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String analyse(long number, long[] position) {
+        try {
+            return search(number, position);
+        } catch (RuntimeException e) {
+            return number + " error " + e;
+        }
+    }
+
+    private String search(long number, long[] position) {
+        long white = position[0];
+        long black = position[1];
+        int player = (int) position[2];
+        long start = System.nanoTime();
+        SearchResult result = Reversi.search(white, black, player, limits, setup, new Random(number));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return number + " " + result.getMove() + " " + (result.getMove() > 0 ? result.getScore() : 0) + " " + result.getDepth()
+                + " " + result.getNodes() + " " + elapsedMillis;
+    }
+
+    private static void write(Future<String> result, Writer out) throws IOException, InterruptedException {
+        try {
+            out.write(result.get());
+        } catch (ExecutionException e) {
+            out.write("error " + e.getCause());
+        }
+        out.write('\n');
+    }
+
+    public static Source textSource(InputStream in) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return () -> {
+            String line;
+            do {
+                line = reader.readLine();
+                if (line == null) {
+                    return null;
+                }
+                line = line.trim();
+            } while (line.isEmpty() || line.startsWith("#"));
+
+            String[] fields = line.split("\\s+");
+            if (fields.length != 2 || !fields[1].equals("O") && !fields[1].equals("X")) {
+                throw new IllegalArgumentException("Expected the board and the side to move: " + line);
+            }
+            long[] board = parseBoard(fields[0]);
+            return new long[]{board[0], board[1], fields[1].equals("O") ? Reversi.WHITE : Reversi.BLACK};
+        };
+    }
+
+    public static Source binarySource(InputStream in) {
+        BufferedInputStream data = new BufferedInputStream(in, RECORD_SIZE * 4096);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        return () -> {
+            int read = data.readNBytes(record.array(), 0, RECORD_SIZE);
+            if (read == 0) {
+                return null;
+            }
+            // the input ends within the record, the next call finds the end
+            if (read < RECORD_SIZE) {
+                throw new IllegalArgumentException("Truncated record of " + read + " bytes");
+            }
+            long white = record.getLong(0);
+            long black = record.getLong(8);
+            int player = record.get(16) & 0xFF;
+            if (player != Reversi.WHITE && player != Reversi.BLACK || (white & black) != 0) {
+                throw new IllegalArgumentException("Invalid record: " + Long.toHexString(white) + " " + Long.toHexString(black) + " " + player);
+            }
+            return new long[]{white, black, player};
+        };
+    }
+
+    /**
+     * Returns the pieces of a board written as 64 cells row by row, indexed by player - 1.
+     */
+    public static long[] parseBoard(String cells) {
+        if (cells.length() != 64) {
+            throw new IllegalArgumentException("A board must have 64 cells: " + cells);
+        }
+        long[] board = new long[2];
+        for (int i = 0; i < 64; i++) {
+            char cell = cells.charAt(i);
+            if (cell == 'O') {
+                board[Reversi.WHITE - 1] |= 1L << i;
+            } else if (cell == 'X') {
+                board[Reversi.BLACK - 1] |= 1L << i;
+            } else if (cell != '-') {
+                throw new IllegalArgumentException("Unknown cell " + cell + ": " + cells);
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,135 @@
+package reversi;
+
+public final class Bitboard {
+
+    // bit i is cell (i / 8, i % 8), i.e. move number i + 1.
+    // Lines going sideways may only run through the inner columns, so shifting them never wraps around a row edge
+    private static final long INNER_COLUMNS = 0x7E7E7E7E7E7E7E7EL;
+
+    private Bitboard() {
+    }
+
+    public static long fromBoard(int[][] board, int player) {
+        long bits = 0;
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board[i].length; j++) {
+                if (board[i][j] == player) {
+                    bits |= 1L << (i * 8 + j);
+                }
+            }
+        }
+        return bits;
+    }
+
+    public static long validMoves(long player, long opponent) {
+        long inner = opponent & INNER_COLUMNS;
+        long moves = movesInDirection(player, inner, 1)
+                | movesInDirection(player, opponent, 8)
+                | movesInDirection(player, inner, 7)
+                | movesInDirection(player, inner, 9);
+        return moves & ~(player | opponent);
+    }
+
+    public static long flips(long player, long opponent, int square) {
+        long move = 1L << square;
+        long inner = opponent & INNER_COLUMNS;
+        return flipsInDirection(move, player, inner, 1)
+                | flipsInDirection(move, player, opponent, 8)
+                | flipsInDirection(move, player, inner, 7)
+                | flipsInDirection(move, player, inner, 9);
+    }
+
+    /**
+     * Applies one of the 8 symmetries of the board: bit 0 of the symmetry transposes the board,
+     * bit 1 flips it upside down and bit 2 mirrors it left to right, in this order.
+     */
+    public static long symmetry(long bits, int symmetry) {
+        if ((symmetry & 1) != 0) {
+            bits = transpose(bits);
+        }
+        if ((symmetry & 2) != 0) {
+            bits = Long.reverseBytes(bits);
+        }
+        if ((symmetry & 4) != 0) {
+            bits = mirror(bits);
+        }
+        return bits;
+    }
+
+    public static long inverseSymmetry(long bits, int symmetry) {
+        if ((symmetry & 4) != 0) {
+            bits = mirror(bits);
+        }
+        if ((symmetry & 2) != 0) {
+            bits = Long.reverseBytes(bits);
+        }
+        if ((symmetry & 1) != 0) {
+            bits = transpose(bits);
+        }
+        return bits;
+    }
+
+    // swaps cell (row, col) with cell (col, row)
+    private static long transpose(long bits) {
+        long t = 0x0F0F0F0F00000000L & (bits ^ bits << 28);
+        bits ^= t ^ t >>> 28;
+        t = 0x3333000033330000L & (bits ^ bits << 14);
+        bits ^= t ^ t >>> 14;
+        t = 0x5500550055005500L & (bits ^ bits << 7);
+        bits ^= t ^ t >>> 7;
+        return bits;
+    }
+
+    // reverses the cells of every row
+    private static long mirror(long bits) {
+        bits = bits >>> 1 & 0x5555555555555555L | (bits & 0x5555555555555555L) << 1;
+        bits = bits >>> 2 & 0x3333333333333333L | (bits & 0x3333333333333333L) << 2;
+        bits = bits >>> 4 & 0x0F0F0F0F0F0F0F0FL | (bits & 0x0F0F0F0F0F0F0F0FL) << 4;
+        return bits;
+    }
+
+    // both ways along one line; a line of opponent's pieces is at most 6 cells long
+    private static long movesInDirection(long player, long opponent, int shift) {
+        long forward = (player << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+
+        long backward = (player >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+
+        return (forward << shift) | (backward >>> shift);
+    }
+
+    private static long flipsInDirection(long move, long player, long opponent, int shift) {
+        long flipped = 0;
+
+        long forward = (move << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        forward |= (forward << shift) & opponent;
+        if (((forward << shift) & player) != 0) {
+            flipped |= forward;
+        }
+
+        long backward = (move >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        backward |= (backward >>> shift) & opponent;
+        if (((backward >>> shift) & player) != 0) {
+            flipped |= backward;
+        }
+
+        return flipped;
+    }
+}
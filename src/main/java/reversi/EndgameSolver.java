@@ -0,0 +1,199 @@
+package reversi;
+
+/**
+ * Plays the rest of the game out perfectly. Scores are the final difference in pieces for the side to move.
+ */
+public final class EndgameSolver {
+
+    // above this many empty squares moves leaving the opponent the fewest replies go first, below it parity decides
+    private static final int FASTEST_FIRST_EMPTIES = 7;
+    // positions with fewer empty squares are solved again rather than looked up
+    private static final int HASH_EMPTIES = 8;
+    // checking the clock costs more than the smallest subtrees
+    private static final int STOP_CHECK_EMPTIES = 6;
+
+    private static final long[] QUADRANTS = {
+            0x000000000F0F0F0FL, 0x00000000F0F0F0F0L, 0x0F0F0F0F00000000L, 0xF0F0F0F000000000L
+    };
+    private static final long CORNERS = 0x8100000000000081L;
+
+    // solved positions share the transposition table with the search, their keys are kept apart from its keys
+    private static final long KEY_SALT = 0x6A09E667F3BCC909L;
+
+    private EndgameSolver() {
+    }
+
+    public static int solve(long player, long opponent, int alpha, int beta, SearchState state, Search search) {
+        long empty = ~(player | opponent);
+        int empties = Long.bitCount(empty);
+        switch (empties) {
+            case 0:
+                return Long.bitCount(player) - Long.bitCount(opponent);
+            case 1:
+                return solveLastEmpty(player, opponent, Long.numberOfTrailingZeros(empty));
+            case 2:
+            case 3:
+                return solveLastEmpties(player, opponent, empty, alpha, beta, false);
+            default:
+                return solveDeep(player, opponent, empties, alpha, beta, state, search);
+        }
+    }
+
+    private static int solveDeep(long player, long opponent, int empties, int alpha, int beta, SearchState state, Search search) {
+        if (empties >= STOP_CHECK_EMPTIES && search.shouldStop(state)) {
+            return 0;
+        }
+        long moves = Bitboard.validMoves(player, opponent);
+        if (moves == 0) {
+            if (Bitboard.validMoves(opponent, player) == 0) {
+                return Long.bitCount(player) - Long.bitCount(opponent);
+            }
+            return -solve(opponent, player, -beta, -alpha, state, search);
+        }
+
+        TranspositionTable transpositionTable = search.getTranspositionTable();
+        long key = 0;
+        long entry = 0;
+        if (empties >= HASH_EMPTIES) {
+            key = Zobrist.hash(player, opponent, false) ^ KEY_SALT;
+            entry = transpositionTable.probe(key);
+            if (entry != 0) {
+                int score = TranspositionTable.score(entry);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER && score >= beta
+                        || bound == TranspositionTable.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        int[] squares = state.endgameSquares(empties);
+        int count = order(player, opponent, moves, empties, entry != 0 ? TranspositionTable.move(entry) : -1, squares, state.endgameScores(empties));
+        int originalAlpha = alpha;
+        int best = Integer.MIN_VALUE;
+        int bestSquare = -1;
+        for (int i = 0; i < count; i++) {
+            int square = squares[i];
+            long flipped = Bitboard.flips(player, opponent, square);
+            int score = -solve(opponent & ~flipped, player | flipped | 1L << square, -beta, -Math.max(alpha, best), state, search);
+            if (search.isStopped()) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                bestSquare = square;
+                if (best >= beta) {
+                    search.countCutoff();
+                    break;
+                }
+            }
+        }
+
+        if (key != 0) {
+            int bound = best <= originalAlpha ? TranspositionTable.UPPER : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            transpositionTable.store(key, empties, bound, best, bestSquare);
+        }
+        return best;
+    }
+
+    private static int order(long player, long opponent, long moves, int empties, int hashSquare, int[] squares, int[] scores) {
+        long oddQuadrants = 0;
+        long empty = ~(player | opponent);
+        for (long quadrant : QUADRANTS) {
+            if ((Long.bitCount(empty & quadrant) & 1) != 0) {
+                oddQuadrants |= quadrant;
+            }
+        }
+
+        int count = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long bit = 1L << square;
+            int score;
+            if (square == hashSquare) {
+                score = Integer.MAX_VALUE;
+            } else if (empties > FASTEST_FIRST_EMPTIES) {
+                long flipped = Bitboard.flips(player, opponent, square);
+                long replies = Bitboard.validMoves(opponent & ~flipped, player | flipped | bit);
+                score = -16 * (Long.bitCount(replies) + Long.bitCount(replies & CORNERS));
+                if ((bit & CORNERS) != 0) {
+                    score += 8;
+                }
+            } else {
+                score = (bit & oddQuadrants) != 0 ? 1 : 0;
+            }
+
+            int i = count++;
+            while (i > 0 && scores[i - 1] < score) {
+                squares[i] = squares[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            squares[i] = square;
+            scores[i] = score;
+        }
+        return count;
+    }
+
+    /**
+     * Tries the empty squares directly instead of generating moves; a square is playable when it flips something.
+     * Squares alone in their quadrant go first.
+     */
+    private static int solveLastEmpties(long player, long opponent, long empty, int alpha, int beta, boolean passed) {
+        int best = Integer.MIN_VALUE;
+        for (int pass = 0; pass < 2; pass++) {
+            for (long squares = empty; squares != 0; squares &= squares - 1) {
+                int square = Long.numberOfTrailingZeros(squares);
+                if (isAloneInQuadrant(square, empty) != (pass == 0)) {
+                    continue;
+                }
+                long flipped = Bitboard.flips(player, opponent, square);
+                if (flipped == 0) {
+                    continue;
+                }
+                long newPlayer = player | flipped | 1L << square;
+                long newOpponent = opponent & ~flipped;
+                long newEmpty = empty & ~(1L << square);
+                int score = Long.bitCount(newEmpty) == 1
+                        ? -solveLastEmpty(newOpponent, newPlayer, Long.numberOfTrailingZeros(newEmpty))
+                        : -solveLastEmpties(newOpponent, newPlayer, newEmpty, -beta, -Math.max(alpha, best), false);
+                if (score > best) {
+                    best = score;
+                    if (best >= beta) {
+                        return best;
+                    }
+                }
+            }
+        }
+        if (best != Integer.MIN_VALUE) {
+            return best;
+        }
+        if (passed) {
+            return Long.bitCount(player) - Long.bitCount(opponent);
+        }
+        return -solveLastEmpties(opponent, player, empty, -beta, -alpha, true);
+    }
+
+    private static int solveLastEmpty(long player, long opponent, int square) {
+        int difference = Long.bitCount(player) - Long.bitCount(opponent);
+        int flipped = Long.bitCount(Bitboard.flips(player, opponent, square));
+        if (flipped != 0) {
+            return difference + 2 * flipped + 1;
+        }
+        flipped = Long.bitCount(Bitboard.flips(opponent, player, square));
+        if (flipped != 0) {
+            return difference - 2 * flipped - 1;
+        }
+        return difference;
+    }
+
+    private static boolean isAloneInQuadrant(int square, long empty) {
+        for (long quadrant : QUADRANTS) {
+            if ((quadrant & 1L << square) != 0) {
+                return Long.bitCount(empty & quadrant) == 1;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package reversi;
+
+@FunctionalInterface
+public interface Evaluator {
+
+    /**
+     * Scores the position for the player owning the first set of pieces, higher is better.
+     */
+    int evaluate(long player, long opponent);
+
+    /**
+     * Scores a node of the search. Evaluators that can use the sums the search state keeps up to date
+     * override this to skip looking at the board.
+     */
+    default int evaluate(SearchState state, int player, int opponent) {
+        return evaluate(state.pieces(player), state.pieces(opponent));
+    }
+}
@@ -0,0 +1,121 @@
+package reversi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One game hosted by the service, with its own board and settings. Setups are those of the console game:
+ * 0 for a player sending moves, 1 to 6 for the AIs.
+ */
+class Game {
+
+    private final int id;
+    private final int whiteSetup;
+    private final int blackSetup;
+    private final SearchLimits limits;
+    private final Random random = new Random();
+    // held for a whole request, so the moves of one game are made one after another
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final long[] board = new long[2];
+    private int player = Reversi.BLACK;
+    private boolean finished;
+    private final List<Integer> moves = new ArrayList<>();
+
+    Game(int id, int whiteSetup, int blackSetup, SearchLimits limits) {
+        if (whiteSetup < 0 || whiteSetup > 6 || blackSetup < 0 || blackSetup > 6) {
+            throw new IllegalArgumentException("Setups go from 0 to 6: " + whiteSetup + ", " + blackSetup);
+        }
+        this.id = id;
+        this.whiteSetup = whiteSetup;
+        this.blackSetup = blackSetup;
+        this.limits = limits;
+        int[][] start = new int[8][8];
+        Reversi.initializeBoard(start);
+        board[Reversi.WHITE - 1] = Bitboard.fromBoard(start, Reversi.WHITE);
+        board[Reversi.BLACK - 1] = Bitboard.fromBoard(start, Reversi.BLACK);
+    }
+
+    int getId() {
+        return id;
+    }
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+    SearchLimits getLimits() {
+        return limits;
+    }
+
+    Random getRandom() {
+        return random;
+    }
+
+    long getPieces(int player) {
+        return board[player - 1];
+    }
+
+    int getPlayer() {
+        return player;
+    }
+
+    boolean isFinished() {
+        return finished;
+    }
+
+    boolean isAiToMove() {
+        return !finished && setup(player) != 0;
+    }
+
+    int getSetup() {
+        return setup(player);
+    }
+
+    /**
+     * Plays a move numbered from 1 to 64 for the side to move. A player without moves passes automatically.
+     */
+    void play(int move) {
+        if (finished) {
+            throw new IllegalStateException("The game is over");
+        }
+        int square = move - 1;
+        if (square < 0 || square > 63 || (Reversi.getValidMoves(board, player) & 1L << square) == 0) {
+            throw new IllegalArgumentException("Invalid move: " + move);
+        }
+        Reversi.makeMove(board, player, square);
+        moves.add(move);
+        int opponent = Reversi.opponent(player);
+        if (Reversi.getValidMoves(board, opponent) != 0) {
+            player = opponent;
+        } else if (Reversi.getValidMoves(board, player) == 0) {
+            finished = true;
+        }
+    }
+
+    /**
+     * Returns the state of the game as lines of key=value.
+     */
+    String describe() {
+        StringBuilder cells = new StringBuilder();
+        for (int i = 0; i < 64; i++) {
+            cells.append((board[Reversi.WHITE - 1] >>> i & 1) != 0 ? 'O' : (board[Reversi.BLACK - 1] >>> i & 1) != 0 ? 'X' : '-');
+        }
+        StringBuilder moveList = new StringBuilder();
+        for (int move : moves) {
+            moveList.append(moveList.length() > 0 ? " " : "").append(move);
+        }
+        return "id=" + id + "\n"
+                + "board=" + cells + "\n"
+                + "turn=" + (finished ? "none" : player == Reversi.WHITE ? "O" : "X") + "\n"
+                + "white=" + Long.bitCount(board[Reversi.WHITE - 1]) + "\n"
+                + "black=" + Long.bitCount(board[Reversi.BLACK - 1]) + "\n"
+                + "moves=" + moveList + "\n";
+    }
+
+    private int setup(int player) {
+        return player == Reversi.WHITE ? whiteSetup : blackSetup;
+    }
+}
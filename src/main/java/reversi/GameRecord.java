@@ -0,0 +1,120 @@
+package reversi;
+
+/**
+ * The moves of one game and what is known about how they were played, as stored in a game archive.
+ * <p>
+ * An archive starts with magic and version as ints, followed by the games. A game is a 16 byte header of
+ * number of moves, black and white setup, black and white search depth, black and white pieces at the end,
+ * number of random opening moves (a byte each), and black and white search time in milliseconds (an int each),
+ * then one byte per move: the square from 0 to 63, or PASS.
+ */
+public class GameRecord {
+
+    public static final int MAGIC = 0x52564752; // "RVGR"
+    public static final int VERSION = 1;
+    public static final int FILE_HEADER_SIZE = 8;
+    public static final int HEADER_SIZE = 16;
+    public static final int PASS = 64;
+    // 60 moves, each of them may follow a pass
+    public static final int MAX_MOVES = 120;
+
+    private final byte[] moves = new byte[MAX_MOVES];
+    private int moveCount;
+    private final int blackSetup;
+    private final int whiteSetup;
+    private final int blackDepth;
+    private final int whiteDepth;
+    private int openingMoves;
+    private int blackPieces;
+    private int whitePieces;
+    private long blackMillis;
+    private long whiteMillis;
+
+    /**
+     * Starts the record of a game between the given setups (0 for a human), searching to the given depths.
+     */
+    public GameRecord(int blackSetup, int whiteSetup, int blackDepth, int whiteDepth) {
+        this.blackSetup = blackSetup;
+        this.whiteSetup = whiteSetup;
+        this.blackDepth = blackDepth;
+        this.whiteDepth = whiteDepth;
+    }
+
+    /**
+     * Adds the next move, a square from 0 to 63 or PASS, and the milliseconds the player thought about it.
+     */
+    public void addMove(int player, int square, long millis) {
+        if (moveCount == MAX_MOVES) {
+            throw new IllegalStateException("A game has at most " + MAX_MOVES + " moves");
+        }
+        moves[moveCount++] = (byte) square;
+        if (player == Reversi.BLACK) {
+            blackMillis += millis;
+        } else {
+            whiteMillis += millis;
+        }
+    }
+
+    /**
+     * Marks the moves so far as random opening moves rather than moves of the setups.
+     */
+    public void endOpening() {
+        openingMoves = moveCount;
+    }
+
+    /**
+     * Sets the result from the final position.
+     */
+    public void finish(long[] board) {
+        blackPieces = Long.bitCount(board[Reversi.BLACK - 1]);
+        whitePieces = Long.bitCount(board[Reversi.WHITE - 1]);
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    byte[] moves() {
+        return moves;
+    }
+
+    public int getBlackSetup() {
+        return blackSetup;
+    }
+
+    public int getWhiteSetup() {
+        return whiteSetup;
+    }
+
+    public int getBlackDepth() {
+        return blackDepth;
+    }
+
+    public int getWhiteDepth() {
+        return whiteDepth;
+    }
+
+    public int getOpeningMoves() {
+        return openingMoves;
+    }
+
+    public int getBlackPieces() {
+        return blackPieces;
+    }
+
+    public int getWhitePieces() {
+        return whitePieces;
+    }
+
+    public long getBlackMillis() {
+        return blackMillis;
+    }
+
+    public long getWhiteMillis() {
+        return whiteMillis;
+    }
+}
@@ -0,0 +1,206 @@
+package reversi;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the games of an archive one after another from memory mapped windows of the file,
+ * so archives far larger than the memory are read at the speed of the disk.
+ */
+public class GameRecordReader implements Closeable {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    // offset of the current game in the window, and where it ends in the file
+    private int offset = -1;
+    private long end = GameRecord.FILE_HEADER_SIZE;
+
+    /**
+     * Called with the position before each move of a replayed game.
+     */
+    public interface MoveVisitor {
+        void visit(long[] board, int player, int square);
+    }
+
+    public GameRecordReader(Path path) throws IOException {
+        this.path = path;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            fileSize = channel.size();
+            if (fileSize < GameRecord.FILE_HEADER_SIZE) {
+                throw new IOException("Not a game archive: " + path);
+            }
+            map(0);
+            if (window.getInt(0) != GameRecord.MAGIC) {
+                throw new IOException("Not a game archive: " + path);
+            }
+            if (window.getInt(4) != GameRecord.VERSION) {
+                throw new IOException("Unsupported game archive version " + window.getInt(4) + ": " + path);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves on to the next game and returns false at the end of the archive.
+     * Throws EOFException for a game cut off by the end of the file.
+     */
+    public boolean next() throws IOException {
+        long start = end;
+        if (start == fileSize) {
+            return false;
+        }
+        if (start + GameRecord.HEADER_SIZE + GameRecord.MAX_MOVES > windowStart + window.limit() && windowStart + window.limit() < fileSize) {
+            map(start);
+        }
+        offset = (int) (start - windowStart);
+        if (start + GameRecord.HEADER_SIZE > fileSize) {
+            throw new EOFException("Game cut off at " + start + ": " + path);
+        }
+        int moveCount = getMoveCount();
+        if (moveCount > GameRecord.MAX_MOVES) {
+            throw new IOException("Broken game at " + start + ": " + path);
+        }
+        if (start + GameRecord.HEADER_SIZE + moveCount > fileSize) {
+            throw new EOFException("Game cut off at " + start + ": " + path);
+        }
+        end = start + GameRecord.HEADER_SIZE + moveCount;
+        return true;
+    }
+
+    /**
+     * Returns where the current game ends in the file, or where the games begin before the first one.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    public int getMoveCount() {
+        return window.get(offset) & 0xFF;
+    }
+
+    /**
+     * Returns a move of the current game: the square from 0 to 63 or GameRecord.PASS.
+     */
+    public int getMove(int index) {
+        return window.get(offset + GameRecord.HEADER_SIZE + index);
+    }
+
+    public int getBlackSetup() {
+        return window.get(offset + 1);
+    }
+
+    public int getWhiteSetup() {
+        return window.get(offset + 2);
+    }
+
+    public int getBlackDepth() {
+        return window.get(offset + 3);
+    }
+
+    public int getWhiteDepth() {
+        return window.get(offset + 4);
+    }
+
+    public int getBlackPieces() {
+        return window.get(offset + 5);
+    }
+
+    public int getWhitePieces() {
+        return window.get(offset + 6);
+    }
+
+    public int getOpeningMoves() {
+        return window.get(offset + 7);
+    }
+
+    public long getBlackMillis() {
+        return window.getInt(offset + 8) & 0xFFFFFFFFL;
+    }
+
+    public long getWhiteMillis() {
+        return window.getInt(offset + 12) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Plays the current game from the start position on the board, indexed by player - 1, calling the visitor
+     * (if there is one) before every move. Throws IOException for a move that is not legal.
+     */
+    public void replay(long[] board, MoveVisitor visitor) throws IOException {
+        int[][] start = new int[8][8];
+        Reversi.initializeBoard(start);
+        board[Reversi.WHITE - 1] = Bitboard.fromBoard(start, Reversi.WHITE);
+        board[Reversi.BLACK - 1] = Bitboard.fromBoard(start, Reversi.BLACK);
+        int player = Reversi.BLACK;
+        int moveCount = getMoveCount();
+        for (int i = 0; i < moveCount; i++) {
+            int square = getMove(i);
+            long moves = Reversi.getValidMoves(board, player);
+            if (square == GameRecord.PASS ? moves != 0 : square < 0 || square > 63 || (moves & 1L << square) == 0) {
+                throw new IOException("Illegal move " + i + " of the game at " + (end - GameRecord.HEADER_SIZE - moveCount) + ": " + path);
+            }
+            if (visitor != null) {
+                visitor.visit(board, player, square);
+            }
+            if (square != GameRecord.PASS) {
+                Reversi.makeMove(board, player, square);
+            }
+            player = Reversi.opponent(player);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void map(long start) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, fileSize - start));
+    }
+
+    /**
+     * Replays every game of an archive and prints how they ended and how fast they were read.
+     * <p>
+     * Usage: GameRecordReader [archive]
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : "games.record");
+        long start = System.nanoTime();
+        long games = 0;
+        long moves = 0;
+        long blackWins = 0;
+        long whiteWins = 0;
+        long[] board = new long[2];
+        try (GameRecordReader reader = new GameRecordReader(path)) {
+            while (reader.next()) {
+                reader.replay(board, null);
+                if (Long.bitCount(board[Reversi.BLACK - 1]) != reader.getBlackPieces() || Long.bitCount(board[Reversi.WHITE - 1]) != reader.getWhitePieces()) {
+                    throw new IOException("The moves of the game ending at " + reader.getEnd() + " do not give its result: " + path);
+                }
+                games++;
+                moves += reader.getMoveCount();
+                if (reader.getBlackPieces() > reader.getWhitePieces()) {
+                    blackWins++;
+                } else if (reader.getWhitePieces() > reader.getBlackPieces()) {
+                    whiteWins++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d moves; black won %d, white won %d, %d draws; replayed in %.2f s, %.0f games per second%n",
+                games, moves, blackWins, whiteWins, games - blackWins - whiteWins, seconds, games / Math.max(seconds, 1e-9));
+    }
+}
@@ -0,0 +1,99 @@
+package reversi;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends games to an archive through a buffer, so playing costs no I/O until the buffer is full.
+ * Not thread safe: games played in parallel have to be written under a lock.
+ */
+public class GameRecordWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long games;
+
+    /**
+     * Opens the archive to append to, creating it if it is missing. A game cut off at the end of the file,
+     * by a crash while it was written, is dropped.
+     */
+    public GameRecordWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            long end;
+            if (channel.size() == 0) {
+                channel.write(ByteBuffer.allocate(GameRecord.FILE_HEADER_SIZE).putInt(GameRecord.MAGIC).putInt(GameRecord.VERSION).flip());
+                end = GameRecord.FILE_HEADER_SIZE;
+            } else {
+                end = completeLength(path);
+            }
+            channel.truncate(end);
+            channel.position(end);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public void write(GameRecord game) throws IOException {
+        if (buffer.remaining() < GameRecord.HEADER_SIZE + game.getMoveCount()) {
+            flush();
+        }
+        buffer.put((byte) game.getMoveCount())
+                .put((byte) game.getBlackSetup())
+                .put((byte) game.getWhiteSetup())
+                .put((byte) Math.min(game.getBlackDepth(), Byte.MAX_VALUE))
+                .put((byte) Math.min(game.getWhiteDepth(), Byte.MAX_VALUE))
+                .put((byte) game.getBlackPieces())
+                .put((byte) game.getWhitePieces())
+                .put((byte) game.getOpeningMoves())
+                .putInt((int) Math.min(game.getBlackMillis(), Integer.MAX_VALUE))
+                .putInt((int) Math.min(game.getWhiteMillis(), Integer.MAX_VALUE))
+                .put(game.moves(), 0, game.getMoveCount());
+        games++;
+    }
+
+    /**
+     * Returns the number of games written since the archive was opened.
+     */
+    public long getGames() {
+        return games;
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private static long completeLength(Path path) throws IOException {
+        try (GameRecordReader reader = new GameRecordReader(path)) {
+            try {
+                while (reader.next()) {
+                    // only the end of the last complete game matters
+                }
+            } catch (EOFException e) {
+                // the game after the last complete one is cut off
+            }
+            return reader.getEnd();
+        }
+    }
+}
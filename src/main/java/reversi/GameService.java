@@ -0,0 +1,240 @@
+package reversi;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hosts many games in one JVM behind a local HTTP endpoint. All searches go through one SearchScheduler.
+ * Responses are plain text lines of key=value, see Game.describe().
+ * <ul>
+ * <li>POST /games?white=0&amp;black=3[&amp;depth=8&amp;time=5000&amp;endgame=16] creates a game</li>
+ * <li>GET /games/{id} returns its state</li>
+ * <li>POST /games/{id}/moves?move=N plays a move numbered from 1 to 64, then the AIs move until a player is
+ * to move or the game is over; without a move only the AIs move</li>
+ * <li>DELETE /games/{id} ends a game</li>
+ * </ul>
+ * <p>
+ * Usage: GameService [--port N] [--max-games N] [--searches N] [--max-pending N] [--max-depth N] [--max-time millis]
+ * <p>
+ * The depth and time a client asks for are capped at the maximums of the service, so no game holds a search slot for long.
+ */
+public class GameService {
+
+    public static final int DEFAULT_MAX_DEPTH = 30;
+    public static final long DEFAULT_MAX_MILLIS = 30_000;
+
+    private final Map<Integer, Game> games = new ConcurrentHashMap<>();
+    private final AtomicInteger ids = new AtomicInteger();
+    private final SearchScheduler scheduler;
+    private final int maxGames;
+    private final int maxDepth;
+    private final long maxMillis;
+    private final HttpServer server;
+    private final ExecutorService handlers;
+
+    public GameService(int port, int maxGames, SearchScheduler scheduler) throws IOException {
+        this(port, maxGames, DEFAULT_MAX_DEPTH, DEFAULT_MAX_MILLIS, scheduler);
+    }
+
+    public GameService(int port, int maxGames, int maxDepth, long maxMillis, SearchScheduler scheduler) throws IOException {
+        this.scheduler = scheduler;
+        this.maxGames = maxGames;
+        this.maxDepth = maxDepth;
+        this.maxMillis = maxMillis;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/games", this::handle);
+        // requests mostly wait for their searches
+        handlers = VirtualThreads.newExecutor(64);
+        server.setExecutor(handlers);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        int maxGames = 1000;
+        int searches = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int maxPending = 256;
+        int maxDepth = DEFAULT_MAX_DEPTH;
+        long maxMillis = DEFAULT_MAX_MILLIS;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+                case "--port":
+                    port = value;
+                    break;
+                case "--max-games":
+                    maxGames = value;
+                    break;
+                case "--searches":
+                    searches = value;
+                    break;
+                case "--max-pending":
+                    maxPending = value;
+                    break;
+                case "--max-depth":
+                    maxDepth = value;
+                    break;
+                case "--max-time":
+                    maxMillis = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        GameService service = new GameService(port, maxGames, maxDepth, maxMillis, new SearchScheduler(searches, maxPending));
+        service.start();
+        System.out.println("Serving games on http://localhost:" + service.getPort() + "/games");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        handlers.shutdownNow();
+        scheduler.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+            if (path.length == 2 && method.equals("POST")) {
+                create(exchange, query);
+                return;
+            }
+            Game game = path.length >= 3 ? games.get(parseId(path[2])) : null;
+            if (game == null) {
+                respond(exchange, 404, "No such game\n");
+            } else if (path.length == 3 && method.equals("GET")) {
+                respond(exchange, 200, describe(game));
+            } else if (path.length == 3 && method.equals("DELETE")) {
+                games.remove(game.getId());
+                scheduler.forget(game);
+                respond(exchange, 200, "Game " + game.getId() + " ended\n");
+            } else if (path.length == 4 && path[3].equals("moves") && method.equals("POST")) {
+                move(exchange, game, query.get("move"));
+            } else {
+                respond(exchange, 404, "Unknown request\n");
+            }
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage() + "\n");
+        } catch (IllegalStateException e) {
+            respond(exchange, 409, e.getMessage() + "\n");
+        } catch (RejectedExecutionException e) {
+            respond(exchange, 503, e.getMessage() + "\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "Interrupted\n");
+        } catch (ExecutionException e) {
+            respond(exchange, 500, e.getCause() + "\n");
+        }
+    }
+
+    private void create(HttpExchange exchange, Map<String, String> query) throws IOException {
+        if (games.size() >= maxGames) {
+            throw new RejectedExecutionException("Too many games: " + maxGames);
+        }
+        long millis = Long.parseLong(query.getOrDefault("time", "5000"));
+        if (millis < 1) {
+            throw new IllegalArgumentException("Time must be positive: " + millis);
+        }
+        SearchLimits limits = new SearchLimits(
+                Math.min(Integer.parseInt(query.getOrDefault("depth", "8")), maxDepth),
+                Math.min(millis, maxMillis),
+                SearchLimits.UNLIMITED,
+                Integer.parseInt(query.getOrDefault("endgame", "16")));
+        Game game = new Game(ids.incrementAndGet(), Integer.parseInt(query.getOrDefault("white", "0")),
+                Integer.parseInt(query.getOrDefault("black", "0")), limits);
+        scheduler.register(game);
+        games.put(game.getId(), game);
+        respond(exchange, 201, game.describe());
+    }
+
+    private void move(HttpExchange exchange, Game game, String move) throws IOException, InterruptedException, ExecutionException {
+        game.getLock().lock();
+        try {
+            if (move != null) {
+                if (game.isAiToMove()) {
+                    throw new IllegalStateException("It is the AI's turn");
+                }
+                game.play(Integer.parseInt(move));
+            }
+            // every AI move is a search request of its own, so games take turns at the scheduler
+            while (game.isAiToMove()) {
+                SearchResult result;
+                try {
+                    result = scheduler.submit(game, game.getPieces(Reversi.WHITE), game.getPieces(Reversi.BLACK), game.getPlayer(),
+                            game.getLimits(), game.getSetup(), game.getRandom()).get();
+                } catch (ExecutionException e) {
+                    // the scheduler turns searches away through the future, that is a 503 rather than a failed search
+                    if (e.getCause() instanceof RejectedExecutionException) {
+                        throw (RejectedExecutionException) e.getCause();
+                    }
+                    throw e;
+                }
+                game.play(result.getMove());
+            }
+            respond(exchange, 200, game.describe());
+        } finally {
+            game.getLock().unlock();
+        }
+    }
+
+    private static String describe(Game game) {
+        game.getLock().lock();
+        try {
+            return game.describe();
+        } finally {
+            game.getLock().unlock();
+        }
+    }
+
+    private static int parseId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(parameter.substring(0, equals), parameter.substring(equals + 1));
+            }
+        }
+        return parameters;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package reversi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for searching all root moves to one depth.
+ */
+@Name("reversi.Iteration")
+@Label("Search Iteration")
+@Category("Reversi")
+@Description("Search of all root moves to one depth")
+class IterationEvent extends Event {
+
+    @Label("Player")
+    int player;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    @Description("Nodes visited by this iteration")
+    long nodes;
+
+    @Label("Completed")
+    @Description("False when the time or node limit stopped the iteration")
+    boolean completed;
+}
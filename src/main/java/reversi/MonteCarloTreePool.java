@@ -0,0 +1,79 @@
+package reversi;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The trees of the Monte Carlo tree searches, so searches of different games run at the same time, each on a tree
+ * of its own. A search takes the idle tree that holds its position, so a game goes on with the tree its last move
+ * grew; otherwise a new tree while there are fewer than the maximum, or else the tree idle the longest.
+ * Searches wait while every tree is in use.
+ */
+final class MonteCarloTreePool {
+
+    public static final int DEFAULT_TREES = Integer.getInteger("reversi.mcts.trees", 4);
+
+    private final ForkJoinPool pool;
+    private final int nodes;
+    private final int maxTrees;
+    // the idle trees, the one idle the longest first
+    private final Deque<MonteCarloTreeSearch> idle = new ArrayDeque<>();
+    private int trees;
+
+    MonteCarloTreePool(ForkJoinPool pool, int nodes, int maxTrees) {
+        if (maxTrees < 1) {
+            throw new IllegalArgumentException("The pool needs at least one tree: " + maxTrees);
+        }
+        this.pool = pool;
+        this.nodes = nodes;
+        this.maxTrees = maxTrees;
+    }
+
+    /**
+     * Searches the position on a tree of its own, see MonteCarloTreeSearch.search.
+     */
+    SearchResult search(long white, long black, int player, SearchLimits limits, Random random, AtomicBoolean cancelled) {
+        MonteCarloTreeSearch tree = take(white, black, player);
+        try {
+            return tree.search(white, black, player, limits, random, cancelled);
+        } finally {
+            release(tree);
+        }
+    }
+
+    private synchronized MonteCarloTreeSearch take(long white, long black, int player) {
+        boolean interrupted = false;
+        while (idle.isEmpty() && trees == maxTrees) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                // the search goes on like the alpha-beta search, which is stopped by its limits or cancelled
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        for (Iterator<MonteCarloTreeSearch> i = idle.iterator(); i.hasNext(); ) {
+            MonteCarloTreeSearch tree = i.next();
+            if (tree.holds(white, black, player)) {
+                i.remove();
+                return tree;
+            }
+        }
+        if (trees < maxTrees) {
+            trees++;
+            return new MonteCarloTreeSearch(pool, nodes);
+        }
+        return idle.removeFirst();
+    }
+
+    private synchronized void release(MonteCarloTreeSearch tree) {
+        idle.addLast(tree);
+        notifyAll();
+    }
+}
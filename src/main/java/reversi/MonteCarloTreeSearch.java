@@ -0,0 +1,361 @@
+package reversi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Monte Carlo tree search, the search of AI setup 6: plays lightly guided random games from the position and grows
+ * a tree towards the moves whose games went best (UCT). Every thread of the pool works on the same tree without locks;
+ * a thread on its way down counts a loss on every node it passes (virtual loss), so the others try other lines
+ * until it comes back up with the result of its game.
+ * <p>
+ * The nodes live in arrays allocated once (an arena) and are never freed one by one. The tree below the position
+ * searched next is kept, the whole arena is cleared when that position is not in the tree or the arena runs full.
+ * One search at a time works on a tree, MonteCarloTreePool hands the trees out to the searches.
+ */
+final class MonteCarloTreeSearch {
+
+    public static final int DEFAULT_NODES = Integer.getInteger("reversi.mcts.nodes", 1 << 21);
+
+    // games played per ply of the depth limit when the limits set no number of nodes
+    private static final int PLAYOUTS_PER_PLY = 10_000;
+    // how many lost games a thread passing a node counts until it returns
+    private static final int VIRTUAL_LOSS = 3;
+    private static final double EXPLORATION = 0.7;
+
+    // states of a node in firstChild, every other value is the index of its first child
+    private static final int UNEXPANDED = 0;
+    private static final int EXPANDING = -1;
+    private static final int TERMINAL = -2;
+
+    private static final long CORNERS = 0x8100000000000081L;
+    // the squares diagonally next to the corners, which mostly give a corner away
+    private static final long X_SQUARES = 0x0042000000004200L;
+
+    private final ForkJoinPool pool;
+    private final int capacity;
+
+    // allocated by the first search, so the setups that never use it do not pay for it
+    // visits in the high half, points of the player who moved into the node in the low half: 2 for a win, 1 for a draw
+    private AtomicLongArray statistics;
+    // set after squares and childCounts of the children are written, so a thread reading the index sees them
+    private AtomicIntegerArray firstChild;
+    private byte[] squares;
+    private byte[] childCounts;
+    private final AtomicInteger size = new AtomicInteger();
+
+    private int root;
+    private long rootWhite;
+    private long rootBlack;
+    private int rootPlayer;
+
+    MonteCarloTreeSearch(ForkJoinPool pool, int capacity) {
+        if (capacity < 65) {
+            throw new IllegalArgumentException("The tree needs room for at least 65 nodes: " + capacity);
+        }
+        this.pool = pool;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Plays games from the position until the limits or cancelled stop it and returns the move played most often.
+     * Scores are the points the moves won, in percent. Without a node limit in the limits the search plays
+     * PLAYOUTS_PER_PLY games per ply of the depth limit; a time limit stops it earlier.
+     * The search plays on every thread of the pool.
+     */
+    SearchResult search(long white, long black, int player, SearchLimits limits, Random random, AtomicBoolean cancelled) {
+        long startTime = System.nanoTime();
+        long own = player == Reversi.WHITE ? white : black;
+        long opponent = player == Reversi.WHITE ? black : white;
+        if (Bitboard.validMoves(own, opponent) == 0) {
+            return new SearchResult(-1, 0, 0, 0, new int[0], new int[0]);
+        }
+        moveRoot(white, black, player);
+        expand(root, own, opponent);
+
+        long maxPlayouts = limits.getMaxNodes() != SearchLimits.UNLIMITED ? limits.getMaxNodes() : (long) limits.getMaxDepth() * PLAYOUTS_PER_PLY;
+        // a time too long to count in nanoseconds is no limit
+        long deadline = limits.getMaxMillis() <= Long.MAX_VALUE / 4_000_000 ? startTime + limits.getMaxMillis() * 1_000_000 : Long.MAX_VALUE;
+        Playouts playouts = new Playouts(own, opponent, maxPlayouts, deadline, cancelled);
+        List<ForkJoinTask<?>> workers = new ArrayList<>();
+        for (int i = 0; i < pool.getParallelism(); i++) {
+            long seed = random.nextLong();
+            workers.add(pool.submit(() -> playouts.run(new SplittableRandom(seed))));
+        }
+        for (ForkJoinTask<?> worker : workers) {
+            worker.join();
+        }
+
+        // the move played most often is the one the search trusts most
+        int first = firstChild.get(root);
+        int count = childCounts[root];
+        int[] rootMoves = new int[count];
+        int[] rootScores = new int[count];
+        int[] rootVisits = new int[count];
+        for (int i = 0; i < count; i++) {
+            long nodeStatistics = statistics.get(first + i);
+            int visits = visits(nodeStatistics);
+            int move = squares[first + i] + 1;
+            int score = visits == 0 ? 0 : (int) (points(nodeStatistics) * 50L / visits);
+            int j = i;
+            while (j > 0 && rootVisits[j - 1] < visits) {
+                rootMoves[j] = rootMoves[j - 1];
+                rootScores[j] = rootScores[j - 1];
+                rootVisits[j] = rootVisits[j - 1];
+                j--;
+            }
+            rootMoves[j] = move;
+            rootScores[j] = score;
+            rootVisits[j] = visits;
+        }
+
+        long elapsedMillis = (System.nanoTime() - startTime) / 1_000_000;
+        long played = playouts.count.get();
+        SearchStatistics searchStatistics = new SearchStatistics(player, rootMoves[0], rootScores[0], playouts.depth.get(), played, played, 0,
+                count, elapsedMillis, new double[0]);
+        return new SearchResult(rootMoves[0], rootScores[0], playouts.depth.get(), played, rootMoves, rootScores, searchStatistics);
+    }
+
+    /**
+     * Tells whether a search of the position would keep the tree, that is the position is the last root or one or
+     * two plies below it and the arena has room left.
+     */
+    boolean holds(long white, long black, int player) {
+        return nodeOf(white, black, player) >= 0;
+    }
+
+    private int nodeOf(long white, long black, int player) {
+        if (statistics == null || size.get() > capacity - capacity / 4) {
+            return -1;
+        }
+        return find(root, rootWhite, rootBlack, rootPlayer, white, black, player, 2);
+    }
+
+    /**
+     * Makes the node of the position the root, keeping the tree below it if it is the last root or one or two plies below it.
+     */
+    private void moveRoot(long white, long black, int player) {
+        if (statistics == null) {
+            statistics = new AtomicLongArray(capacity);
+            firstChild = new AtomicIntegerArray(capacity);
+            squares = new byte[capacity];
+            childCounts = new byte[capacity];
+        } else {
+            int node = nodeOf(white, black, player);
+            if (node >= 0) {
+                root = node;
+                rootWhite = white;
+                rootBlack = black;
+                rootPlayer = player;
+                return;
+            }
+        }
+        root = 0;
+        rootWhite = white;
+        rootBlack = black;
+        rootPlayer = player;
+        statistics.set(0, 0);
+        firstChild.set(0, UNEXPANDED);
+        size.set(1);
+    }
+
+    private int find(int node, long white, long black, int player, long targetWhite, long targetBlack, int targetPlayer, int plies) {
+        if (white == targetWhite && black == targetBlack && player == targetPlayer) {
+            return node;
+        }
+        int first = firstChild.get(node);
+        if (plies == 0 || first <= 0) {
+            return -1;
+        }
+        int opponent = Reversi.opponent(player);
+        for (int child = first; child < first + childCounts[node]; child++) {
+            long[] board = {white, black};
+            if (squares[child] != GameRecord.PASS) {
+                Reversi.makeMove(board, player, squares[child]);
+            }
+            int found = find(child, board[0], board[1], opponent, targetWhite, targetBlack, targetPlayer, plies - 1);
+            if (found >= 0) {
+                return found;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the children of the node, the side to move having the pieces own. Returns the index of the first child or
+     * the state of the node if another thread is expanding it, it ends the game or the arena is full.
+     */
+    private int expand(int node, long own, long opponent) {
+        long moves = Bitboard.validMoves(own, opponent);
+        if (moves == 0 && Bitboard.validMoves(opponent, own) == 0) {
+            firstChild.compareAndSet(node, UNEXPANDED, TERMINAL);
+            return firstChild.get(node);
+        }
+        // a player without moves passes
+        int count = moves == 0 ? 1 : Long.bitCount(moves);
+        if (size.get() + count > capacity || !firstChild.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+            return firstChild.get(node);
+        }
+        int first = size.getAndAdd(count);
+        if (first + count > capacity) {
+            firstChild.set(node, UNEXPANDED);
+            return UNEXPANDED;
+        }
+        for (int child = first; child < first + count; child++) {
+            squares[child] = (byte) (moves == 0 ? GameRecord.PASS : Long.numberOfTrailingZeros(moves));
+            moves &= moves - 1;
+            statistics.set(child, 0);
+            firstChild.set(child, UNEXPANDED);
+        }
+        childCounts[node] = (byte) count;
+        firstChild.set(node, first);
+        return first;
+    }
+
+    /**
+     * Returns the child with the best upper confidence bound, or the first one nobody has visited yet.
+     */
+    private int select(int node, int first) {
+        double logVisits = Math.log(Math.max(1, visits(statistics.get(node))));
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + childCounts[node]; child++) {
+            long childStatistics = statistics.get(child);
+            int visits = visits(childStatistics);
+            if (visits == 0) {
+                return child;
+            }
+            double value = points(childStatistics) / (2.0 * visits) + EXPLORATION * Math.sqrt(logVisits / visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays the position out, corners first and the squares next to them last, otherwise at random.
+     * Returns 1 if the side to move with the pieces own wins, -1 if it loses and 0 for a draw.
+     */
+    private static int playout(long own, long opponent, SplittableRandom random) {
+        int sign = 1;
+        boolean passed = false;
+        while (true) {
+            long moves = Bitboard.validMoves(own, opponent);
+            if (moves == 0) {
+                if (passed) {
+                    break;
+                }
+                passed = true;
+            } else {
+                passed = false;
+                long preferred = moves & CORNERS;
+                if (preferred == 0) {
+                    preferred = (moves & ~X_SQUARES) != 0 ? moves & ~X_SQUARES : moves;
+                }
+                for (int skip = random.nextInt(Long.bitCount(preferred)); skip > 0; skip--) {
+                    preferred &= preferred - 1;
+                }
+                int square = Long.numberOfTrailingZeros(preferred);
+                long flipped = Bitboard.flips(own, opponent, square);
+                own |= flipped | 1L << square;
+                opponent &= ~flipped;
+            }
+            long swap = own;
+            own = opponent;
+            opponent = swap;
+            sign = -sign;
+        }
+        return sign * Integer.compare(Long.bitCount(own), Long.bitCount(opponent));
+    }
+
+    private static int visits(long statistics) {
+        return (int) (statistics >>> 32);
+    }
+
+    private static int points(long statistics) {
+        return (int) statistics;
+    }
+
+    /**
+     * The games of one search, played by every worker until one of them reaches a limit.
+     */
+    private final class Playouts {
+
+        private final long own;
+        private final long opponent;
+        private final long maxPlayouts;
+        private final long deadline;
+        private final AtomicBoolean cancelled;
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicInteger depth = new AtomicInteger();
+        private volatile boolean stopped;
+
+        Playouts(long own, long opponent, long maxPlayouts, long deadline, AtomicBoolean cancelled) {
+            this.own = own;
+            this.opponent = opponent;
+            this.maxPlayouts = maxPlayouts;
+            this.deadline = deadline;
+            this.cancelled = cancelled;
+        }
+
+        void run(SplittableRandom random) {
+            int[] path = new int[GameRecord.MAX_MOVES + 1];
+            int maxLength = 0;
+            while (!stopped) {
+                long own = this.own;
+                long opponent = this.opponent;
+                int node = root;
+                int length = 0;
+                path[length++] = node;
+                statistics.addAndGet(node, (long) VIRTUAL_LOSS << 32);
+                while (true) {
+                    int first = firstChild.get(node);
+                    // a leaf is only expanded the second time a thread reaches it, most leaves are never reached again
+                    if (first == UNEXPANDED && visits(statistics.get(node)) > VIRTUAL_LOSS) {
+                        first = expand(node, own, opponent);
+                    }
+                    if (first <= 0) {
+                        break;
+                    }
+                    node = select(node, first);
+                    int square = squares[node];
+                    if (square != GameRecord.PASS) {
+                        long flipped = Bitboard.flips(own, opponent, square);
+                        own |= flipped | 1L << square;
+                        opponent &= ~flipped;
+                    }
+                    long swap = own;
+                    own = opponent;
+                    opponent = swap;
+                    path[length++] = node;
+                    statistics.addAndGet(node, (long) VIRTUAL_LOSS << 32);
+                }
+                maxLength = Math.max(maxLength, length);
+
+                // the points of a node go to the player who moved into it, the opponent of the side to move there
+                int result = -playout(own, opponent, random);
+                for (int i = length - 1; i >= 0; i--) {
+                    statistics.addAndGet(path[i], ((long) (1 - VIRTUAL_LOSS) << 32) + result + 1);
+                    result = -result;
+                }
+
+                long played = count.incrementAndGet();
+                if (played >= maxPlayouts || cancelled.get() || (played & 63) == 0 && System.nanoTime() > deadline) {
+                    stopped = true;
+                }
+            }
+            depth.accumulateAndGet(maxLength - 1, Math::max);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package reversi;
+
+import java.util.Arrays;
+
+public class MoveOrdering {
+
+    private static final int MAX_PLY = 128;
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int KILLER_SCORE = 1 << 29;
+    private static final int MAX_HISTORY = 1 << 24;
+
+    // each move the opponent keeps costs as much as this many points of cell weight
+    private static final int MOBILITY_WEIGHT = 10;
+    // counting the opponent's replies is only worth it when the subtrees below are big enough
+    private static final int MOBILITY_DEPTH = 3;
+
+    private final int[] squareWeights = new int[64];
+    private final int[] killers = new int[MAX_PLY * 2];
+
+    // shared by all threads without synchronization: a lost update only makes the ordering a bit worse
+    private final int[] history = new int[2 * 64];
+
+    public MoveOrdering(int[][] weights) {
+        for (int square = 0; square < 64; square++) {
+            squareWeights[square] = weights[square / 8][square % 8];
+        }
+        Arrays.fill(killers, -1);
+    }
+
+    /**
+     * Writes the moves into squares in the order they should be searched: the hash move, the killer moves of the ply
+     * and then the rest by history and by how good the cell is and how few moves it leaves to the opponent.
+     * Returns the number of moves.
+     */
+    public int order(long player, long opponent, long moves, int playerIndex, int hashSquare, int ply, int depth, int[] squares, int[] scores) {
+        int count = Long.bitCount(moves);
+        int killerIndex = Math.min(ply, MAX_PLY - 1) * 2;
+        for (int i = 0; moves != 0; moves &= moves - 1, i++) {
+            int square = Long.numberOfTrailingZeros(moves);
+            int score;
+            if (square == hashSquare) {
+                score = HASH_MOVE_SCORE;
+            } else if (square == killers[killerIndex]) {
+                score = KILLER_SCORE;
+            } else if (square == killers[killerIndex + 1]) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = history[playerIndex * 64 + square] + squareWeights[square];
+                if (depth >= MOBILITY_DEPTH) {
+                    long flipped = Bitboard.flips(player, opponent, square);
+                    long replies = Bitboard.validMoves(opponent & ~flipped, player | flipped | 1L << square);
+                    score -= MOBILITY_WEIGHT * Long.bitCount(replies);
+                }
+            }
+            insert(squares, scores, i, square, score);
+        }
+        return count;
+    }
+
+    public void cutoff(int playerIndex, int square, int ply, int depth) {
+        int killerIndex = Math.min(ply, MAX_PLY - 1) * 2;
+        if (killers[killerIndex] != square) {
+            killers[killerIndex + 1] = killers[killerIndex];
+            killers[killerIndex] = square;
+        }
+        int index = playerIndex * 64 + square;
+        history[index] = Math.min(history[index] + depth * depth, MAX_HISTORY);
+    }
+
+    private static void insert(int[] squares, int[] scores, int count, int square, int score) {
+        int i = count;
+        while (i > 0 && scores[i - 1] < score) {
+            squares[i] = squares[i - 1];
+            scores[i] = scores[i - 1];
+            i--;
+        }
+        squares[i] = square;
+        scores[i] = score;
+    }
+}
@@ -0,0 +1,271 @@
+package reversi;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Best moves of known positions, read from a memory mapped file so every process playing shares one copy of it.
+ * <p>
+ * The file holds a header of magic, version and number of entries, followed by the entries sorted by key and setup:
+ * key (8 bytes), score (4 bytes), move (1 byte), depth (1 byte), the AI setup that searched the move (1 byte)
+ * and a reserved byte. Every setup has moves of its own, a position has one entry per setup that searched it.
+ * A position is stored once for all of its 8 symmetries, under the smallest of their keys and with the move
+ * of that orientation.
+ */
+public final class OpeningBook {
+
+    public static final String DEFAULT_FILE = "opening.book";
+
+    private static final int MAGIC = 0x5256424B; // "RVBK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 16;
+
+    private static final OpeningBook EMPTY_BOOK = new OpeningBook(ByteBuffer.allocate(HEADER_SIZE), 0);
+
+    // only ever read with absolute gets, so threads can share it
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(ByteBuffer buffer, int size) {
+        this.buffer = buffer;
+        this.size = size;
+    }
+
+    public static OpeningBook empty() {
+        return EMPTY_BOOK;
+    }
+
+    /**
+     * Maps the book file into memory. A missing file is an empty book.
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not an opening book: " + path);
+            }
+            int version = buffer.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported opening book version " + version + ": " + path);
+            }
+            long size = buffer.getLong(8);
+            if (size < 0 || HEADER_SIZE + size * ENTRY_SIZE != fileSize) {
+                throw new IOException("Truncated opening book: " + path);
+            }
+            return new OpeningBook(buffer, (int) size);
+        } catch (NoSuchFileException e) {
+            return EMPTY_BOOK;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the book move of the AI setup for the side to move, numbered from 1 to 64 like the moves of the game, or null if
+     * that setup has no move for the position in the book. Symmetric moves of a symmetric position are chosen at random.
+     */
+    public SearchResult find(long white, long black, boolean whiteToMove, int setup, Random random) {
+        if (size == 0) {
+            return null;
+        }
+        int[] symmetries = new int[8];
+        int count = canonicalSymmetries(white, black, whiteToMove, symmetries);
+        long key = key(white, black, whiteToMove, symmetries[0]);
+
+        int index = indexOf(key, setup);
+        if (index < 0) {
+            return null;
+        }
+        int offset = HEADER_SIZE + index * ENTRY_SIZE;
+        int score = buffer.getInt(offset + 8);
+        int canonicalSquare = buffer.get(offset + 12);
+        int depth = buffer.get(offset + 13);
+        int symmetry = symmetries[count == 1 ? 0 : random.nextInt(count)];
+        long move = Bitboard.inverseSymmetry(1L << canonicalSquare, symmetry);
+
+        // a different position with the same key cannot be told apart, but it rarely has the same move
+        long player = whiteToMove ? white : black;
+        long opponent = whiteToMove ? black : white;
+        if ((Bitboard.validMoves(player, opponent) & move) == 0) {
+            return null;
+        }
+        int square = Long.numberOfTrailingZeros(move);
+        return new SearchResult(square + 1, score, depth, 0, new int[]{square + 1}, new int[]{score});
+    }
+
+    /**
+     * Returns every entry of the book in file order.
+     */
+    public List<Entry> entries() {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            entries.add(new Entry(buffer.getLong(offset), buffer.get(offset + 12), buffer.getInt(offset + 8), buffer.get(offset + 13), setup(offset)));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the key a position with the given pieces is stored under.
+     */
+    public static long canonicalKey(long white, long black, boolean whiteToMove) {
+        return key(white, black, whiteToMove, canonicalSymmetry(white, black, whiteToMove));
+    }
+
+    /**
+     * Returns the symmetry that turns the position into the orientation it is stored in.
+     */
+    public static int canonicalSymmetry(long white, long black, boolean whiteToMove) {
+        int canonical = 0;
+        long key = Long.MAX_VALUE;
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            long symmetryKey = key(white, black, whiteToMove, symmetry);
+            if (symmetryKey < key) {
+                key = symmetryKey;
+                canonical = symmetry;
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Writes every symmetry turning the position into the orientation it is stored in to symmetries, which needs room
+     * for 8 of them; a symmetric position has more than one. Returns their number.
+     */
+    static int canonicalSymmetries(long white, long black, boolean whiteToMove, int[] symmetries) {
+        int count = 0;
+        long key = Long.MAX_VALUE;
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            long symmetryKey = key(white, black, whiteToMove, symmetry);
+            if (symmetryKey < key) {
+                key = symmetryKey;
+                count = 0;
+            }
+            if (symmetryKey == key) {
+                symmetries[count++] = symmetry;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the entries to a new book file, replacing the old file only once the new one is complete,
+     * so processes opening the book never see half of it.
+     */
+    public static void write(Path path, List<Entry> entries) throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(Entry::getKey).thenComparingInt(Entry::getSetup));
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + sorted.size() * ENTRY_SIZE).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sorted.size());
+        for (Entry entry : sorted) {
+            buffer.putLong(entry.getKey())
+                    .putInt(entry.getScore())
+                    .put((byte) entry.getSquare())
+                    .put((byte) Math.min(entry.getDepth(), Byte.MAX_VALUE))
+                    .put((byte) entry.getSetup())
+                    .put((byte) 0);
+        }
+        buffer.flip();
+
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static long key(long white, long black, boolean whiteToMove, int symmetry) {
+        return Zobrist.hash(Bitboard.symmetry(white, symmetry), Bitboard.symmetry(black, symmetry), whiteToMove);
+    }
+
+    private int indexOf(long key, int setup) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = HEADER_SIZE + middle * ENTRY_SIZE;
+            long middleKey = buffer.getLong(offset);
+            int middleSetup = setup(offset);
+            if (middleKey < key || middleKey == key && middleSetup < setup) {
+                low = middle + 1;
+            } else if (middleKey > key || middleSetup > setup) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int setup(int offset) {
+        return buffer.get(offset + 14);
+    }
+
+    /**
+     * One position of the book: its canonical key and the best move in that orientation, as a square from 0 to 63,
+     * found by the search of the given AI setup.
+     */
+    public static class Entry {
+
+        private final long key;
+        private final int square;
+        private final int score;
+        private final int depth;
+        private final int setup;
+
+        public Entry(long key, int square, int score, int depth, int setup) {
+            this.key = key;
+            this.square = square;
+            this.score = score;
+            this.depth = depth;
+            this.setup = setup;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public int getSquare() {
+            return square;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getSetup() {
+            return setup;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package reversi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Extends the opening book offline: searches every position reachable from the start in the given number of moves
+ * with the evaluator of an AI setup and stores its best move for that setup. Entries already searched at least as deep are kept,
+ * so are the entries of the other setups.
+ * <p>
+ * Usage: OpeningBookBuilder [book file] [moves] [depth] [setup 1-5]
+ */
+public final class OpeningBookBuilder {
+
+    private static final int DEFAULT_PLIES = 6;
+    private static final int DEFAULT_DEPTH = 10;
+    private static final int DEFAULT_SETUP = 3;
+
+    private OpeningBookBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : OpeningBook.DEFAULT_FILE);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PLIES;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_DEPTH;
+        int setup = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_SETUP;
+        if (setup < 1 || setup > 5) {
+            throw new IllegalArgumentException("The book holds moves of the setups 1 to 5: " + setup);
+        }
+
+        Map<Long, OpeningBook.Entry> entries = new HashMap<>();
+        List<OpeningBook.Entry> otherSetups = new ArrayList<>();
+        for (OpeningBook.Entry entry : OpeningBook.open(path).entries()) {
+            if (entry.getSetup() == setup) {
+                entries.put(entry.getKey(), entry);
+            } else {
+                otherSetups.add(entry);
+            }
+        }
+        int existing = entries.size();
+
+        int[][] board = new int[8][8];
+        Reversi.initializeBoard(board);
+        // the same seed gives the same book
+        Random random = new Random(0);
+        SearchLimits limits = SearchLimits.depth(depth);
+        long startTime = System.nanoTime();
+        int searched = 0;
+
+        Set<Long> visited = new HashSet<>();
+        ArrayDeque<long[]> queue = new ArrayDeque<>();
+        // white pieces, black pieces, player to move, moves played
+        queue.add(new long[]{Bitboard.fromBoard(board, Reversi.WHITE), Bitboard.fromBoard(board, Reversi.BLACK), Reversi.BLACK, 0});
+        while (!queue.isEmpty()) {
+            long[] position = queue.poll();
+            long white = position[0];
+            long black = position[1];
+            int player = (int) position[2];
+            int ply = (int) position[3];
+            boolean whiteToMove = player == Reversi.WHITE;
+            long key = OpeningBook.canonicalKey(white, black, whiteToMove);
+            if (!visited.add(key)) {
+                continue;
+            }
+
+            long own = whiteToMove ? white : black;
+            long other = whiteToMove ? black : white;
+            long moves = Bitboard.validMoves(own, other);
+            if (moves == 0) {
+                if (Bitboard.validMoves(other, own) != 0) {
+                    queue.add(new long[]{white, black, Reversi.opponent(player), ply});
+                }
+                continue;
+            }
+
+            OpeningBook.Entry entry = entries.get(key);
+            if (entry == null || entry.getDepth() < depth) {
+                SearchResult result = Reversi.search(white, black, player, limits, Reversi.evaluator(setup, own), random);
+                int symmetry = OpeningBook.canonicalSymmetry(white, black, whiteToMove);
+                int square = Long.numberOfTrailingZeros(Bitboard.symmetry(1L << (result.getMove() - 1), symmetry));
+                entries.put(key, new OpeningBook.Entry(key, square, result.getScore(), result.getDepth(), setup));
+                searched++;
+                if (searched % 100 == 0) {
+                    System.out.printf("Searched %d positions; %d in the book%n", searched, entries.size());
+                }
+            }
+
+            if (ply < plies) {
+                for (; moves != 0; moves &= moves - 1) {
+                    int square = Long.numberOfTrailingZeros(moves);
+                    long flipped = Bitboard.flips(own, other, square);
+                    long newOwn = own | flipped | 1L << square;
+                    long newOther = other & ~flipped;
+                    queue.add(whiteToMove
+                            ? new long[]{newOwn, newOther, Reversi.BLACK, ply + 1}
+                            : new long[]{newOther, newOwn, Reversi.WHITE, ply + 1});
+                }
+            }
+        }
+
+        List<OpeningBook.Entry> book = new ArrayList<>(entries.values());
+        book.addAll(otherSetups);
+        OpeningBook.write(path, book);
+        long elapsedSeconds = (System.nanoTime() - startTime) / 1_000_000_000;
+        System.out.printf("Wrote %d positions of setup %d to %s (%d new or deeper, %d before) in %d s%n",
+                entries.size(), setup, path, searched, existing, elapsedSeconds);
+    }
+}
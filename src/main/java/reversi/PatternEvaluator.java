@@ -0,0 +1,280 @@
+package reversi;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Evaluates a board by looking up patterns of cells (edges, corners, 2x5 corner regions and diagonals) in tables
+ * indexed by their base-3 code, plus mobility and potential mobility. Every pattern shares one table between
+ * all its rotations and reflections. There are separate weights for a few stages of the game; the score is
+ * interpolated between the two stages around the number of pieces on the board.
+ * <p>
+ * The weight file holds magic, version, number of stages and number of patterns as ints, then for every stage
+ * the mobility and potential mobility weights as ints and the table of every pattern as shorts.
+ */
+public class PatternEvaluator implements Evaluator {
+
+    public static final String DEFAULT_FILE = "patterns.weights";
+
+    private static final int MAGIC = 0x52565057; // "RVPW"
+    private static final int VERSION = 1;
+
+    // patterns in one orientation as cells (row * 8 + column), the first cell is the lowest base-3 digit
+    private static final int[][] PATTERNS = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 9, 14},       // edge with both X squares
+            {0, 1, 2, 8, 9, 10, 16, 17, 18},       // 3x3 corner
+            {0, 1, 2, 3, 4, 8, 9, 10, 11, 12},     // 2x5 corner
+            {0, 9, 18, 27, 36, 45, 54, 63},        // diagonals of 8 to 4 cells
+            {1, 10, 19, 28, 37, 46, 55},
+            {2, 11, 20, 29, 38, 47},
+            {3, 12, 21, 30, 39},
+            {4, 13, 22, 31}
+    };
+
+    // columns a diagonal starting in column i may reach, so shifting it does not wrap around
+    private static final long[] DIAGONAL_COLUMNS = {
+            0xFFFFFFFFFFFFFFFFL, 0xFEFEFEFEFEFEFEFEL, 0xFCFCFCFCFCFCFCFCL, 0xF8F8F8F8F8F8F8F8L, 0xF0F0F0F0F0F0F0F0L
+    };
+
+    private static final int[] TABLE_SIZES = new int[PATTERNS.length];
+    // SYMMETRY_PATTERNS[symmetry] lists the patterns placed by that symmetry; a pattern that covers the same cells
+    // in several orientations is only placed once
+    private static final int[][] SYMMETRY_PATTERNS = new int[8][];
+    // base-3 number with the digits of the binary number, so a code is THREE[player bits] + 2 * THREE[opponent bits]
+    private static final int[] THREE = new int[1 << 10];
+
+    static {
+        List<List<Integer>> patterns = new ArrayList<>();
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            patterns.add(new ArrayList<>());
+        }
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+            TABLE_SIZES[pattern] = pow3(PATTERNS[pattern].length);
+            List<Long> placed = new ArrayList<>();
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                long mask = 0;
+                for (int cell : PATTERNS[pattern]) {
+                    mask |= Bitboard.symmetry(1L << cell, symmetry);
+                }
+                if (!placed.contains(mask)) {
+                    placed.add(mask);
+                    patterns.get(symmetry).add(pattern);
+                }
+            }
+        }
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            SYMMETRY_PATTERNS[symmetry] = patterns.get(symmetry).stream().mapToInt(Integer::intValue).toArray();
+        }
+        for (int bits = 1; bits < THREE.length; bits++) {
+            int lowest = Integer.numberOfTrailingZeros(bits);
+            THREE[bits] = THREE[bits & bits - 1] + pow3(lowest);
+        }
+    }
+
+    // indexed by stage, then pattern, then base-3 code with 1 for the player's pieces and 2 for the opponent's
+    private final short[][][] tables;
+    private final int[] mobilityWeights;
+    private final int[] potentialMobilityWeights;
+    private final long fingerprint;
+
+    public PatternEvaluator(short[][][] tables, int[] mobilityWeights, int[] potentialMobilityWeights) {
+        if (tables.length < 2 || mobilityWeights.length != tables.length || potentialMobilityWeights.length != tables.length) {
+            throw new IllegalArgumentException("Weights must cover at least two stages");
+        }
+        for (short[][] stage : tables) {
+            for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+                if (stage.length != PATTERNS.length || stage[pattern].length != TABLE_SIZES[pattern]) {
+                    throw new IllegalArgumentException("Table of pattern " + pattern + " must have " + TABLE_SIZES[pattern] + " weights");
+                }
+            }
+        }
+        this.tables = tables;
+        this.mobilityWeights = mobilityWeights;
+        this.potentialMobilityWeights = potentialMobilityWeights;
+        long hash = Arrays.hashCode(mobilityWeights) * 31L + Arrays.hashCode(potentialMobilityWeights);
+        for (short[][] stage : tables) {
+            for (short[] table : stage) {
+                hash = hash * 31 + Arrays.hashCode(table);
+            }
+        }
+        this.fingerprint = hash;
+    }
+
+    /**
+     * Returns a hash of the weights, so results computed with other weights can be told apart.
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Reads the weights from the file or returns the default weights if there is no file.
+     */
+    public static PatternEvaluator load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a pattern weight file: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported pattern weight version " + version + ": " + path);
+            }
+            int stages = in.readInt();
+            if (stages < 2 || in.readInt() != PATTERNS.length) {
+                throw new IOException("Pattern weights do not match the patterns: " + path);
+            }
+            short[][][] tables = new short[stages][PATTERNS.length][];
+            int[] mobilityWeights = new int[stages];
+            int[] potentialMobilityWeights = new int[stages];
+            for (int stage = 0; stage < stages; stage++) {
+                mobilityWeights[stage] = in.readInt();
+                potentialMobilityWeights[stage] = in.readInt();
+                for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+                    short[] table = new short[TABLE_SIZES[pattern]];
+                    for (int i = 0; i < table.length; i++) {
+                        table[i] = in.readShort();
+                    }
+                    tables[stage][pattern] = table;
+                }
+            }
+            return new PatternEvaluator(tables, mobilityWeights, potentialMobilityWeights);
+        } catch (NoSuchFileException e) {
+            return withDefaultWeights();
+        } catch (EOFException e) {
+            throw new IOException("Truncated pattern weight file: " + path, e);
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tables.length);
+            out.writeInt(PATTERNS.length);
+            for (int stage = 0; stage < tables.length; stage++) {
+                out.writeInt(mobilityWeights[stage]);
+                out.writeInt(potentialMobilityWeights[stage]);
+                for (short[] table : tables[stage]) {
+                    for (short weight : table) {
+                        out.writeShort(weight);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Weights that reproduce POSITION_WEIGHTS through the patterns, with mobility mattering in the opening
+     * and fading out towards the end. A starting point for tuned weights.
+     */
+    public static PatternEvaluator withDefaultWeights() {
+        int[] coverage = new int[64];
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            for (int pattern : SYMMETRY_PATTERNS[symmetry]) {
+                for (int cell : PATTERNS[pattern]) {
+                    coverage[Long.numberOfTrailingZeros(Bitboard.symmetry(1L << cell, symmetry))]++;
+                }
+            }
+        }
+        short[][] table = new short[PATTERNS.length][];
+        for (int pattern = 0; pattern < PATTERNS.length; pattern++) {
+            int[] cells = PATTERNS[pattern];
+            table[pattern] = new short[TABLE_SIZES[pattern]];
+            for (int code = 0; code < TABLE_SIZES[pattern]; code++) {
+                double weight = 0;
+                for (int i = 0, digits = code; i < cells.length; i++, digits /= 3) {
+                    int sign = digits % 3 == 1 ? 1 : digits % 3 == 2 ? -1 : 0;
+                    weight += sign * Reversi.positionWeight(cells[i]) / (double) coverage[cells[i]];
+                }
+                table[pattern][code] = (short) Math.round(weight);
+            }
+        }
+        return new PatternEvaluator(new short[][][]{table, table}, new int[]{10, 2}, new int[]{4, 0});
+    }
+
+    /**
+     * Writes the default weights to a file, e.g. to start tuning from them.
+     * <p>
+     * Usage: PatternEvaluator [weight file]
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args.length > 0 ? args[0] : DEFAULT_FILE);
+        withDefaultWeights().write(path);
+        System.out.println("Wrote default pattern weights to " + path);
+    }
+
+    @Override
+    public int evaluate(long player, long opponent) {
+        // stages are spread evenly from the start position with 4 pieces to the full board
+        int steps = tables.length - 1;
+        int progress = (Long.bitCount(player | opponent) - 4) * steps;
+        int stage = Math.min(progress / 60, steps - 1);
+        int weight = progress - stage * 60;
+        short[][] low = tables[stage];
+        short[][] high = tables[stage + 1];
+
+        int lowScore = 0;
+        int highScore = 0;
+        for (int symmetry = 0; symmetry < 8; symmetry++) {
+            // the cells of a pattern placed by a symmetry are the cells of the pattern itself on the board turned back
+            long playerCells = Bitboard.inverseSymmetry(player, symmetry);
+            long opponentCells = Bitboard.inverseSymmetry(opponent, symmetry);
+            for (int pattern : SYMMETRY_PATTERNS[symmetry]) {
+                int code = THREE[cells(pattern, playerCells)] + 2 * THREE[cells(pattern, opponentCells)];
+                lowScore += low[pattern][code];
+                highScore += high[pattern][code];
+            }
+        }
+
+        int mobility = Long.bitCount(Bitboard.validMoves(player, opponent)) - Long.bitCount(Bitboard.validMoves(opponent, player));
+        long empty = ~(player | opponent);
+        int potentialMobility = Long.bitCount(neighbours(opponent) & empty) - Long.bitCount(neighbours(player) & empty);
+        lowScore += mobility * mobilityWeights[stage] + potentialMobility * potentialMobilityWeights[stage];
+        highScore += mobility * mobilityWeights[stage + 1] + potentialMobility * potentialMobilityWeights[stage + 1];
+        return (lowScore * (60 - weight) + highScore * weight) / 60;
+    }
+
+    /**
+     * Returns the pieces on the cells of the pattern as a binary number, the first cell being the lowest bit.
+     */
+    private static int cells(int pattern, long pieces) {
+        switch (pattern) {
+            case 0:
+                return (int) (pieces & 0xFF | (pieces >>> 9 & 1) << 8 | (pieces >>> 14 & 1) << 9);
+            case 1:
+                return (int) (pieces & 0x7 | pieces >>> 5 & 0x38 | pieces >>> 10 & 0x1C0);
+            case 2:
+                return (int) (pieces & 0x1F | pieces >>> 3 & 0x3E0);
+            default:
+                // the cells of a diagonal are in different columns, the multiplication gathers them in the top row
+                int column = pattern - 3;
+                long diagonal = 0x8040201008040201L << column & DIAGONAL_COLUMNS[column];
+                return (int) ((pieces & diagonal) * 0x0101010101010101L >>> 56 + column);
+        }
+    }
+
+    // cells next to any of the pieces
+    private static long neighbours(long pieces) {
+        long sideways = pieces >>> 1 & 0x7F7F7F7F7F7F7F7FL | pieces << 1 & 0xFEFEFEFEFEFEFEFEL;
+        long row = pieces | sideways;
+        return sideways | row << 8 | row >>> 8;
+    }
+
+    private static int pow3(int exponent) {
+        int power = 1;
+        for (int i = 0; i < exponent; i++) {
+            power *= 3;
+        }
+        return power;
+    }
+}
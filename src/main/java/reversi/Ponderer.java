@@ -0,0 +1,123 @@
+package reversi;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches on the human's time: while they think, the positions after each of their replies are searched
+ * for the AI, the likeliest reply first. When the reply that was played has been searched already, the AI answers
+ * at once; when it is being searched, the AI waits for that search, which has a head start; otherwise pondering is
+ * cancelled and the AI searches as usual.
+ */
+class Ponderer {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ponder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Random random = new Random();
+
+    // results by the key of the position after a reply, only touched by the game thread
+    private final Map<Long, Future<SearchResult>> results = new HashMap<>();
+    private AtomicBoolean cancelled = new AtomicBoolean();
+    private volatile long searchingKey;
+
+    /**
+     * Starts pondering the replies of the human player to the position on the board, for an AI with the given setup.
+     */
+    void start(int[][] board, int humanPlayer, int aiSetup, SearchLimits limits) {
+        cancel();
+        cancelled = new AtomicBoolean();
+        AtomicBoolean sessionCancelled = cancelled;
+        int aiPlayer = Reversi.opponent(humanPlayer);
+        long[] position = {Bitboard.fromBoard(board, Reversi.WHITE), Bitboard.fromBoard(board, Reversi.BLACK)};
+        long moves = Reversi.getValidMoves(position, humanPlayer);
+
+        int[] squares = new int[Long.bitCount(moves)];
+        int[] scores = new int[squares.length];
+        long[][] children = new long[64][];
+        int count = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long[] child = position.clone();
+            Reversi.makeMove(child, humanPlayer, square);
+            children[square] = child;
+            // the human probably plays what looks best to them one move ahead
+            int score = Reversi.evaluateBoardWithWeights(child[humanPlayer - 1], child[aiPlayer - 1]);
+            int i = count++;
+            while (i > 0 && scores[i - 1] < score) {
+                squares[i] = squares[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
+            }
+            squares[i] = square;
+            scores[i] = score;
+        }
+
+        OpeningBook book = Reversi.getOpeningBook();
+        for (int i = 0; i < count; i++) {
+            long white = children[squares[i]][Reversi.WHITE - 1];
+            long black = children[squares[i]][Reversi.BLACK - 1];
+            // the AI cannot move after this reply or it answers from the book anyway
+            if (Bitboard.validMoves(children[squares[i]][aiPlayer - 1], children[squares[i]][humanPlayer - 1]) == 0
+                    || book.find(white, black, aiPlayer == Reversi.WHITE, aiSetup, random) != null) {
+                continue;
+            }
+            long key = key(white, black, aiPlayer);
+            results.put(key, executor.submit(() -> {
+                if (sessionCancelled.get()) {
+                    return null;
+                }
+                searchingKey = key;
+                return Reversi.search(white, black, aiPlayer, limits, aiSetup, random, sessionCancelled);
+            }));
+        }
+    }
+
+    /**
+     * Returns the pondered result for the AI to move in the position on the board, or null if there is none,
+     * and stops pondering.
+     */
+    SearchResult take(int[][] board, int aiPlayer) {
+        long key = key(Bitboard.fromBoard(board, Reversi.WHITE), Bitboard.fromBoard(board, Reversi.BLACK), aiPlayer);
+        Future<SearchResult> result = results.remove(key);
+        if (result == null || !result.isDone() && searchingKey != key) {
+            cancel();
+            return null;
+        }
+        // the remaining replies were not played, only their queued searches are dropped, the searched one is kept
+        for (Future<SearchResult> other : results.values()) {
+            other.cancel(false);
+        }
+        results.clear();
+        try {
+            SearchResult searchResult = result.get();
+            return searchResult != null && searchResult.getMove() > 0 ? searchResult : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    void cancel() {
+        cancelled.set(true);
+        for (Future<SearchResult> result : results.values()) {
+            result.cancel(false);
+        }
+        results.clear();
+    }
+
+    private static long key(long white, long black, int player) {
+        return Zobrist.hash(white, black, player == Reversi.WHITE);
+    }
+}
@@ -0,0 +1,508 @@
+package reversi;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+/**
+ * Results of earlier searches, kept in a file so positions searched once are answered without searching again,
+ * by later games and after a restart as well.
+ * <p>
+ * Positions are stored once for all of their symmetries, under the canonical key of the opening book mixed with
+ * a key of the evaluator, since the scores depend on it. The file is a log: a header of magic and version, followed by
+ * records of key (8 bytes), score (4 bytes), move (1 byte), depth (1 byte), 2 reserved bytes and the CRC32 of those
+ * 16 bytes. Records are only ever appended and a later record of a key replaces the earlier ones; a record torn by
+ * a crash fails its checksum and is cut off when the file is loaded. Once the cache is full the least useful entries
+ * are dropped and the log is rewritten with the rest by a thread of its own, to a new file that replaces the old one
+ * only when it is complete.
+ * <p>
+ * One process at a time logs to a file, it holds a lock on the file next to it with ".lock" added to the name.
+ * Other processes opening the file meanwhile load what has been logged so far and keep their own results in memory.
+ */
+public final class PositionCache implements Closeable {
+
+    public static final String DEFAULT_FILE = "positions.cache";
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private static final int MAGIC = 0x52565043; // "RVPC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 20;
+    private static final int MAX_HITS = 1 << 20;
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private final Path path;
+    private final int capacity;
+    // open addressing with linear probing, key 0 marks a free slot
+    private final long[] keys;
+    private final int[] scores;
+    private final byte[] squares;
+    private final byte[] depths;
+    // lookups the entry answered, halved whenever entries are dropped so old ones do not stay forever
+    private final int[] hits;
+    private final int mask;
+    private int size;
+    // records in the log, the rewrite drops the replaced ones
+    private long records;
+    private FileChannel channel;
+    private FileChannel lockChannel;
+    // while the log is rewritten, the records logged meanwhile, for the new log as well
+    private ByteBuffer rewriteRecords;
+    private Thread rewriter;
+    // set when entries are dropped or the log outgrows them while it is rewritten, the rewrite is then done again
+    private boolean rewriteAgain;
+    // an error of the rewriting thread, thrown by the next store
+    private IOException rewriteError;
+
+    private PositionCache(Path path, int capacity) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("Capacity must be at least 4: " + capacity);
+        }
+        int slots = Integer.highestOneBit(capacity - 1) << 2;
+        this.path = path;
+        this.capacity = capacity;
+        keys = new long[slots];
+        scores = new int[slots];
+        squares = new byte[slots];
+        depths = new byte[slots];
+        hits = new int[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Returns a cache that is not kept in a file.
+     */
+    public static PositionCache inMemory(int capacity) {
+        return new PositionCache(null, capacity);
+    }
+
+    /**
+     * Loads the entries of the file, creating it if it is missing, and keeps it open to log new entries to.
+     * If another process logs to the file, its entries so far are loaded and new ones are kept in memory only.
+     */
+    public static PositionCache open(Path path, int capacity) throws IOException {
+        PositionCache cache = new PositionCache(path, capacity);
+        FileChannel lockChannel = FileChannel.open(lockFile(path), StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // held by this process already
+            lock = null;
+        } catch (IOException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            if (Files.exists(path)) {
+                try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                    cache.load(channel);
+                }
+            }
+            return cache;
+        }
+
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            if (channel.size() < HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN).putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+            }
+            long end = cache.load(channel);
+            // a torn record at the end is cut off, so the next one is appended in its place
+            channel.truncate(end);
+            channel.position(end);
+        } catch (IOException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            lockChannel.close();
+            throw e;
+        }
+        synchronized (cache) {
+            cache.channel = channel;
+            cache.lockChannel = lockChannel;
+            // a log longer than the capacity had entries dropped while loading
+            if (cache.records > 2L * cache.size || cache.records > capacity) {
+                cache.startRewrite();
+            }
+        }
+        return cache;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Tells whether new entries are logged to the file, rather than kept in memory only.
+     */
+    public synchronized boolean isLogging() {
+        return channel != null;
+    }
+
+    /**
+     * Waits for a rewrite of the log to finish, closes the file and lets other processes log to it.
+     * The cache goes on in memory only.
+     */
+    @Override
+    public void close() throws IOException {
+        while (true) {
+            Thread running;
+            synchronized (this) {
+                running = rewriter;
+            }
+            if (running == null) {
+                break;
+            }
+            try {
+                running.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        synchronized (this) {
+            try {
+                if (channel != null) {
+                    channel.close();
+                }
+            } finally {
+                channel = null;
+                if (lockChannel != null) {
+                    // closing the channel releases the lock
+                    lockChannel.close();
+                    lockChannel = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the stored result for the side to move if it was searched at least minDepth deep, with the move
+     * numbered from 1 to 64 like the moves of the game, or null. Symmetric moves of a symmetric position are chosen at random.
+     */
+    public synchronized SearchResult find(long white, long black, boolean whiteToMove, long evaluatorKey, int minDepth, Random random) {
+        int slot = slot(key(white, black, whiteToMove, evaluatorKey));
+        if (keys[slot] == 0 || depths[slot] < minDepth) {
+            return null;
+        }
+        int[] symmetries = new int[8];
+        int count = OpeningBook.canonicalSymmetries(white, black, whiteToMove, symmetries);
+        int symmetry = symmetries[count == 1 ? 0 : random.nextInt(count)];
+        long move = Bitboard.inverseSymmetry(1L << squares[slot], symmetry);
+
+        // as in the opening book, a different position with the same key rarely has the same move
+        long player = whiteToMove ? white : black;
+        long opponent = whiteToMove ? black : white;
+        if ((Bitboard.validMoves(player, opponent) & move) == 0) {
+            return null;
+        }
+        hits[slot] = Math.min(hits[slot] + 1, MAX_HITS);
+        int square = Long.numberOfTrailingZeros(move);
+        return new SearchResult(square + 1, scores[slot], depths[slot], 0, new int[]{square + 1}, new int[]{scores[slot]});
+    }
+
+    /**
+     * Keeps the move and score of a search of the given depth, unless the position is stored from a deeper search already.
+     * When the file cannot be written the cache goes on in memory only and the error is thrown once.
+     * Rewriting the log does not hold up the caller, it runs on a thread of its own.
+     */
+    public synchronized void store(long white, long black, boolean whiteToMove, long evaluatorKey, int move, int score, int depth) throws IOException {
+        long key = key(white, black, whiteToMove, evaluatorKey);
+        int slot = slot(key);
+        depth = Math.min(depth, Byte.MAX_VALUE);
+        if (keys[slot] != 0 && depths[slot] > depth) {
+            return;
+        }
+        long canonicalMove = Bitboard.symmetry(1L << move - 1, OpeningBook.canonicalSymmetry(white, black, whiteToMove));
+        int square = Long.numberOfTrailingZeros(canonicalMove);
+        boolean evicted = false;
+        if (keys[slot] == 0 && size >= capacity) {
+            evict();
+            evicted = true;
+            slot = slot(key);
+        }
+        put(slot, key, score, square, depth, keys[slot] == 0 ? 0 : hits[slot]);
+
+        if (rewriteError != null) {
+            IOException error = rewriteError;
+            rewriteError = null;
+            throw error;
+        }
+        if (channel == null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE).order(ByteOrder.BIG_ENDIAN);
+        putRecord(record, key, score, square, depth);
+        record.flip();
+        if (rewriteRecords != null) {
+            rewriteRecords = append(rewriteRecords, record.duplicate());
+        }
+        run(() -> {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            records++;
+        });
+        if (evicted || records >= 2L * capacity) {
+            // the dropped entries must not come back with the next start, nor should the log outgrow the entries by much
+            startRewrite();
+        }
+    }
+
+    /**
+     * Reads the entries of the log and returns where its last complete record ends.
+     */
+    private long load(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            // another process has only just created the file
+            return HEADER_SIZE;
+        }
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize).order(ByteOrder.BIG_ENDIAN);
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a position cache: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported position cache version " + buffer.getInt(4) + ": " + path);
+        }
+        CRC32 crc = new CRC32();
+        int offset = HEADER_SIZE;
+        for (; offset + RECORD_SIZE <= fileSize; offset += RECORD_SIZE) {
+            crc.reset();
+            crc.update(buffer.slice(offset, RECORD_SIZE - 4));
+            if ((int) crc.getValue() != buffer.getInt(offset + 16)) {
+                break;
+            }
+            long key = buffer.getLong(offset);
+            int slot = slot(key);
+            if (keys[slot] == 0 && size >= capacity) {
+                evict();
+                slot = slot(key);
+            }
+            put(slot, key, buffer.getInt(offset + 8), buffer.get(offset + 12), buffer.get(offset + 13), 0);
+            records++;
+        }
+        return offset;
+    }
+
+    /**
+     * Starts rewriting the log with the entries as they are now, or once more after the rewrite that is running.
+     */
+    private void startRewrite() {
+        if (rewriter != null) {
+            rewriteAgain = true;
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + size * RECORD_SIZE).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                putRecord(buffer, keys[slot], scores[slot], squares[slot], depths[slot]);
+            }
+        }
+        buffer.flip();
+        rewriteRecords = ByteBuffer.allocate(16 * RECORD_SIZE);
+        // not a daemon, so the process does not end halfway through the new log
+        rewriter = new Thread(() -> rewrite(buffer, size), "position-cache-rewrite");
+        rewriter.start();
+    }
+
+    /**
+     * Writes the entries to a new log that replaces the old one once it is complete, with the records logged meanwhile.
+     */
+    private void rewrite(ByteBuffer buffer, int entries) {
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = null;
+        FileChannel out = null;
+        try {
+            temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            out = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+            synchronized (this) {
+                if (channel != null) {
+                    ByteBuffer logged = rewriteRecords.flip();
+                    long loggedRecords = logged.remaining() / RECORD_SIZE;
+                    while (logged.hasRemaining()) {
+                        out.write(logged);
+                    }
+                    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    channel.close();
+                    channel = out;
+                    out = null;
+                    records = entries + loggedRecords;
+                }
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                if (channel != null) {
+                    rewriteError = e;
+                    try {
+                        channel.close();
+                    } catch (IOException ignored) {
+                        // the first error is the one to report
+                    }
+                    channel = null;
+                }
+            }
+        } finally {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+                if (temporary != null) {
+                    Files.deleteIfExists(temporary);
+                }
+            } catch (IOException ignored) {
+                // a temporary file left behind does no harm
+            }
+            synchronized (this) {
+                rewriteRecords = null;
+                rewriter = null;
+                if (rewriteAgain && channel != null) {
+                    rewriteAgain = false;
+                    startRewrite();
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer append(ByteBuffer buffer, ByteBuffer record) {
+        if (buffer.remaining() < record.remaining()) {
+            buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer.flip());
+        }
+        return buffer.put(record);
+    }
+
+    private static Path lockFile(Path path) {
+        return path.resolveSibling(path.getFileName() + LOCK_SUFFIX);
+    }
+
+    /**
+     * Drops a quarter of the entries: the ones answering the fewest lookups, the shallowest first among those.
+     */
+    private void evict() {
+        long[] usefulness = new long[size];
+        int count = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                usefulness[count++] = usefulness(slot);
+            }
+        }
+        Arrays.sort(usefulness);
+        int drop = size / 4;
+        // entries as useful as the most useful one dropped are dropped as far as needed
+        long threshold = usefulness[drop - 1];
+        int dropAtThreshold = drop;
+        for (int i = 0; usefulness[i] < threshold; i++) {
+            dropAtThreshold--;
+        }
+
+        long[] keptKeys = new long[size];
+        int[] keptSlots = new int[size];
+        int kept = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] == 0) {
+                continue;
+            }
+            long value = usefulness(slot);
+            if (value < threshold || value == threshold && dropAtThreshold-- > 0) {
+                continue;
+            }
+            keptKeys[kept] = keys[slot];
+            keptSlots[kept++] = slot;
+        }
+        // the table is filled again, the entries are first copied as they move around in it
+        int[] keptScores = new int[kept];
+        byte[] keptSquares = new byte[kept];
+        byte[] keptDepths = new byte[kept];
+        int[] keptHits = new int[kept];
+        for (int i = 0; i < kept; i++) {
+            int slot = keptSlots[i];
+            keptScores[i] = scores[slot];
+            keptSquares[i] = squares[slot];
+            keptDepths[i] = depths[slot];
+            keptHits[i] = hits[slot] / 2;
+        }
+        Arrays.fill(keys, 0);
+        size = 0;
+        for (int i = 0; i < kept; i++) {
+            put(slot(keptKeys[i]), keptKeys[i], keptScores[i], keptSquares[i], keptDepths[i], keptHits[i]);
+        }
+    }
+
+    private long usefulness(int slot) {
+        return (long) hits[slot] << 8 | depths[slot];
+    }
+
+    private void put(int slot, long key, int score, int square, int depth, int hitCount) {
+        if (keys[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key;
+        scores[slot] = score;
+        squares[slot] = (byte) square;
+        depths[slot] = (byte) depth;
+        hits[slot] = hitCount;
+    }
+
+    /**
+     * Returns the slot holding the key or the free slot it goes to.
+     */
+    private int slot(long key) {
+        int slot = (int) (key ^ key >>> 32) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = slot + 1 & mask;
+        }
+        return slot;
+    }
+
+    private static long key(long white, long black, boolean whiteToMove, long evaluatorKey) {
+        long key = OpeningBook.canonicalKey(white, black, whiteToMove) ^ evaluatorKey * 0x9E3779B97F4A7C15L;
+        // 0 marks a free slot
+        return key != 0 ? key : 1;
+    }
+
+    private static void putRecord(ByteBuffer buffer, long key, int score, int square, int depth) {
+        int start = buffer.position();
+        buffer.putLong(key).putInt(score).put((byte) square).put((byte) depth).putShort((short) 0);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, RECORD_SIZE - 4));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    private interface FileOperation {
+        void run() throws IOException;
+    }
+
+    private void run(FileOperation operation) throws IOException {
+        try {
+            operation.run();
+        } catch (IOException e) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // the first error is the one to report
+            }
+            channel = null;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,1144 @@
+package reversi;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class Reversi {
+
+    private static final ForkJoinPool executorService = new ForkJoinPool(Runtime.getRuntime().availableProcessors(),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+
+    private static final SearchMetrics metrics = new SearchMetrics();
+
+    // below this depth subtrees are too small to be worth handing over to other threads
+    private static final int SPLIT_DEPTH = 4;
+    // half the width of the first aspiration window
+    private static final int ASPIRATION_WINDOW = 16;
+    // bigger than the score of any position, a won endgame counts a thousand per piece
+    private static final int MAX_SCORE = 64_000;
+
+    private static final TranspositionTable transpositionTable = new TranspositionTable(1 << 20);
+
+    // the trees of setup 6, whose searches share the threads of the alpha-beta search
+    private static final MonteCarloTreePool monteCarloTrees = new MonteCarloTreePool(executorService, MonteCarloTreeSearch.DEFAULT_NODES,
+            MonteCarloTreePool.DEFAULT_TREES);
+
+    private static final int WHITE_DEPTH = 8;
+    private static final int BLACK_DEPTH = 8;
+
+    // time limit for one move in milliseconds, the search is deepened up to the depth above while it allows
+    private static final long WHITE_MOVE_TIME = 5000;
+    private static final long BLACK_MOVE_TIME = 5000;
+
+    // with this many empty squares left the game is played out to the end instead of evaluated
+    private static final int WHITE_ENDGAME_EMPTIES = 16;
+    private static final int BLACK_ENDGAME_EMPTIES = 16;
+
+    private static final SearchLimits WHITE_LIMITS = new SearchLimits(WHITE_DEPTH, WHITE_MOVE_TIME, SearchLimits.UNLIMITED, WHITE_ENDGAME_EMPTIES);
+    private static final SearchLimits BLACK_LIMITS = new SearchLimits(BLACK_DEPTH, BLACK_MOVE_TIME, SearchLimits.UNLIMITED, BLACK_ENDGAME_EMPTIES);
+
+    // an AI playing against a human searches the human's possible replies while they think
+    private static final boolean PONDER = true;
+
+    // -Dreversi.cache=true keeps search results in the position cache file of the working directory
+    private static final boolean POSITION_CACHE = Boolean.getBoolean("reversi.cache");
+
+    private static final int[][] POSITION_WEIGHTS = {
+            {120, -20, 20, 5, 5, 20, -20, 120},
+            {-20, -40, -5, -5, -5, -5, -40, -20},
+            {20, -5, 15, 3, 3, 15, -5, 20},
+            {5, -5, 3, 3, 3, 3, -5, 5},
+            {5, -5, 3, 3, 3, 3, -5, 5},
+            {20, -5, 15, 3, 3, 15, -5, 20},
+            {-20, -40, -5, -5, -5, -5, -40, -20},
+            {120, -20, 20, 5, 5, 20, -20, 120}
+    };
+
+    private static final int[][] POSITION_WEIGHTS_NO_PENALTIES = {
+            {120, 1, 20, 5, 5, 20, 1, 120},
+            {1, 1, 1, 1, 1, 1, 1, 1},
+            {20, 1, 15, 3, 3, 15, 1, 20},
+            {5, 1, 3, 3, 3, 3, 1, 5},
+            {5, 1, 3, 3, 3, 3, 1, 5},
+            {20, 1, 15, 3, 3, 15, 1, 20},
+            {1, 1, 1, 1, 1, 1, 1, 1},
+            {120, 1, 20, 5, 5, 20, 1, 120}
+    };
+
+    private static final WeightTable WEIGHT_TABLE = new WeightTable(cellWeights(POSITION_WEIGHTS));
+    private static final WeightTable WEIGHT_TABLE_NO_PENALTIES = new WeightTable(cellWeights(POSITION_WEIGHTS_NO_PENALTIES));
+
+    private static final Evaluator PIECES_EVALUATOR = Reversi::evaluateBoard;
+
+    // the weighted evaluators read the sums the search state keeps instead of scanning the board at every leaf
+    private static final Evaluator WEIGHTS_EVALUATOR = new Evaluator() {
+        @Override
+        public int evaluate(long player, long opponent) {
+            return evaluateBoardWithWeights(player, opponent);
+        }
+
+        @Override
+        public int evaluate(SearchState state, int player, int opponent) {
+            return state.weightedSum(player) - state.weightedSum(opponent);
+        }
+    };
+
+    private static final Evaluator WEIGHTS_NO_PENALTIES_EVALUATOR = new Evaluator() {
+        @Override
+        public int evaluate(long player, long opponent) {
+            return evaluateBoardWithWeightsNoPenalties(player, opponent);
+        }
+
+        @Override
+        public int evaluate(SearchState state, int player, int opponent) {
+            return state.weightedSumNoPenalties(player) - state.weightedSumNoPenalties(opponent);
+        }
+    };
+
+    private static final long CORNERS = 0x8100000000000081L;
+
+    static final int EMPTY = 0;
+    static final int WHITE = 1;
+    static final int BLACK = 2;
+
+    // the setup that plays by Monte Carlo tree search, which only counts the pieces at the end of its games
+    static final int MONTE_CARLO_SETUP = 6;
+
+    public static void main(String[] args) {
+        Random random = new Random();
+
+        int[][] board = new int[8][8];
+        initializeBoard(board);
+
+        Scanner scanner = new Scanner(System.in);
+        System.out.print("Enter White player setup (0 - Player, 1 - Easy AI, 2 - Medium AI, 3 - Hard AI, 4 - Adaptive AI, 5 - Pattern AI, 6 - Monte Carlo AI): ");
+        int whitePlayer = scanner.nextInt();
+
+        System.out.print("Enter Black player setup (0 - Player, 1 - Easy AI, 2 - Medium AI, 3 - Hard AI, 4 - Adaptive AI, 5 - Pattern AI, 6 - Monte Carlo AI): ");
+        int blackPlayer = scanner.nextInt();
+
+        Ponderer ponderer = new Ponderer();
+        int currentPlayer = BLACK;
+        while (true) {
+            if (currentPlayer == WHITE) {
+                System.out.println("WHITE TURN");
+            } else {
+                System.out.println("BLACK TURN");
+            }
+            printBoard(board, currentPlayer);
+            List<Integer> validMoves = getValidMoves(board, currentPlayer);
+            if (validMoves.isEmpty()) {
+                int nextPlayer = opponent(currentPlayer);
+                List<Integer> nextValidMoves = getValidMoves(board, nextPlayer);
+                if (nextValidMoves.isEmpty()) {
+                    break;
+                } else {
+                    System.out.println("No valid moves for the current player. Skipping");
+                    currentPlayer = nextPlayer;
+                    continue;
+                }
+            }
+
+            if (currentPlayer == WHITE) {
+                if (whitePlayer != 0) {
+                    int aiMove = aiMove(board, whitePlayer, WHITE, WHITE_LIMITS, ponderer, random);
+                    int aiRow = aiMove / 8 + 1;
+                    int aiColumn = aiMove - aiMove / 8 * 8;
+                    System.out.println("AI move: " + aiColumn + aiRow);
+                    makeMove(board, WHITE, aiMove);
+                } else {
+                    if (PONDER && blackPlayer != 0) {
+                        ponderer.start(board, WHITE, blackPlayer, BLACK_LIMITS);
+                    }
+                    System.out.print("Enter your move (first column, then row, no spaces): ");
+                    int move = scanner.nextInt();
+                    int column = move / 10;
+                    int row = (move - column * 10) % 9;
+                    move = (row - 1) * 8 + column;
+                    while (!validMoves.contains(move)) {
+                        System.out.println("Invalid move. Please try again.");
+                        System.out.print("Enter your move (first column, then row, no spaces): ");
+                        move = scanner.nextInt();
+                        column = move / 10;
+                        row = (move - column * 10) % 8;
+                        move = (row - 1) * 8 + column;
+                    }
+                    makeMove(board, WHITE, move);
+                }
+            } else {
+                if (blackPlayer != 0) {
+                    int aiMove = aiMove(board, blackPlayer, BLACK, BLACK_LIMITS, ponderer, random);
+                    int aiRow = aiMove / 8 + 1;
+                    int aiColumn = aiMove - aiMove / 8 * 8;
+                    System.out.println("AI move: " + aiColumn + aiRow);
+                    makeMove(board, BLACK, aiMove);
+                } else {
+                    if (PONDER && whitePlayer != 0) {
+                        ponderer.start(board, BLACK, whitePlayer, WHITE_LIMITS);
+                    }
+                    System.out.print("Enter your move (first column, then row, no spaces): ");
+                    int move = scanner.nextInt();
+                    int column = move / 10;
+                    int row = (move - column * 10) % 9;
+                    move = (row - 1) * 8 + column;
+                    while (!validMoves.contains(move)) {
+                        System.out.println("Invalid move. Please try again.");
+                        System.out.print("Enter your move (first column, then row, no spaces): ");
+                        move = scanner.nextInt();
+                        column = move / 10;
+                        row = (move - column * 10) % 8;
+                        move = (row - 1) * 8 + column;
+                    }
+                    makeMove(board, BLACK, move);
+                }
+            }
+            currentPlayer = opponent(currentPlayer);
+            System.out.println();
+        }
+
+        ponderer.cancel();
+        printBoard(board, currentPlayer);
+        printResult(board);
+    }
+
+    private static int aiMove(int[][] board, int setup, int player, SearchLimits limits, Ponderer ponderer, Random random) {
+        // the results of the tree search are not cached, it has no evaluator to key them by
+        Evaluator evaluator = setup == MONTE_CARLO_SETUP ? null : evaluator(setup, Bitboard.fromBoard(board, player));
+        SearchResult pondered = ponderer.take(board, player);
+        if (pondered != null) {
+            System.out.println("Pondered the move while the opponent was thinking");
+            printSearchResult(player, pondered);
+            storeCached(Bitboard.fromBoard(board, WHITE), Bitboard.fromBoard(board, BLACK), player, limits, evaluator, pondered);
+            return pondered.getMove();
+        }
+        // the book only holds moves of the setups that built it
+        SearchResult bookMove = OpeningBookHolder.BOOK.find(Bitboard.fromBoard(board, WHITE), Bitboard.fromBoard(board, BLACK), player == WHITE, setup, random);
+        if (bookMove != null) {
+            System.out.printf("Book move of the %d; score: %d; move: %d; depth: %d%n", player, bookMove.getScore(), bookMove.getMove(), bookMove.getDepth());
+            return bookMove.getMove();
+        }
+        if (evaluator == null) {
+            SearchResult result = search(Bitboard.fromBoard(board, WHITE), Bitboard.fromBoard(board, BLACK), player, limits, setup, random);
+            printSearchResult(player, result);
+            return result.getMove();
+        }
+        return minimax(board, limits, evaluator, player, random);
+    }
+
+    static void initializeBoard(int[][] board) {
+        for (int[] row : board) {
+            Arrays.fill(row, EMPTY);
+        }
+        board[3][3] = WHITE;
+        board[3][4] = BLACK;
+        board[4][3] = BLACK;
+        board[4][4] = WHITE;
+    }
+
+    private static PatternEvaluator loadPatternEvaluator(Path path) {
+        try {
+            return PatternEvaluator.load(path);
+        } catch (IOException e) {
+            System.err.println("Pattern weights " + path + " could not be read: " + e.getMessage());
+            return PatternEvaluator.withDefaultWeights();
+        }
+    }
+
+    // without its file the cache still serves the games of this run
+    private static PositionCache loadPositionCache(Path path) {
+        try {
+            PositionCache cache = PositionCache.open(path, PositionCache.DEFAULT_CAPACITY);
+            if (!cache.isLogging()) {
+                System.err.println("Position cache " + path + " is in use by another process, the results of this one are kept in memory");
+            }
+            return cache;
+        } catch (IOException e) {
+            System.err.println("Position cache " + path + " could not be opened: " + e.getMessage());
+            return PositionCache.inMemory(PositionCache.DEFAULT_CAPACITY);
+        }
+    }
+
+    // loaded with the first search that looks in it, so tools that never do leave the file alone
+    private static final class PositionCacheHolder {
+        static final PositionCache CACHE = loadPositionCache(Path.of(PositionCache.DEFAULT_FILE));
+    }
+
+    // the files below are read when first used, so loading this class reads no files
+    private static final class OpeningBookHolder {
+        static final OpeningBook BOOK = loadOpeningBook(Path.of(OpeningBook.DEFAULT_FILE));
+    }
+
+    private static final class PatternEvaluatorHolder {
+        static final PatternEvaluator EVALUATOR = loadPatternEvaluator(Path.of(PatternEvaluator.DEFAULT_FILE));
+    }
+
+    static OpeningBook getOpeningBook() {
+        return OpeningBookHolder.BOOK;
+    }
+
+    /**
+     * Forgets every searched position, so the next search starts from scratch, e.g. to measure it.
+     */
+    static void clearTranspositionTable() {
+        transpositionTable.clear();
+    }
+
+    // a missing book only means every move is searched, a broken one should not stop the game either
+    private static OpeningBook loadOpeningBook(Path path) {
+        try {
+            return OpeningBook.open(path);
+        } catch (IOException e) {
+            System.err.println("Opening book " + path + " could not be read: " + e.getMessage());
+            return OpeningBook.empty();
+        }
+    }
+
+    private static void printBoard(int[][] board, int player) {
+        long validMoves = Bitboard.validMoves(Bitboard.fromBoard(board, player), Bitboard.fromBoard(board, opponent(player)));
+        // the whole board goes out in one print
+        StringBuilder out = new StringBuilder("\033[1;30m  1 2 3 4 5 6 7 8\n");
+        for (int i = 0; i < board.length; i++) {
+            out.append("\033[1;30m").append(i + 1).append(' ');
+            for (int j = 0; j < board[i].length; j++) {
+                if (board[i][j] == EMPTY) {
+                    if ((validMoves & 1L << (i * 8 + j)) != 0) {
+                        out.append("\033[1;96m" + "\u25A0 ");
+                    } else {
+                        out.append("\033[0;37m" + "\u25A0 ");
+                    }
+                } else if (board[i][j] == WHITE) {
+                    out.append("\033[1;34m" + "\u25CF ");
+                } else {
+                    out.append("\033[1;30m" + "\u25CF ");
+                }
+            }
+            out.append('\n');
+        }
+        System.out.print(out);
+    }
+
+    static List<Integer> getValidMoves(int[][] board, int player) {
+        List<Integer> validMoves = new ArrayList<>();
+        long moves = Bitboard.validMoves(Bitboard.fromBoard(board, player), Bitboard.fromBoard(board, opponent(player)));
+        for (; moves != 0; moves &= moves - 1) {
+            validMoves.add(Long.numberOfTrailingZeros(moves) + 1);
+        }
+        return validMoves;
+    }
+
+    static void makeMove(int[][] board, int player, int move) {
+        int square = move - 1;
+        long flipped = Bitboard.flips(Bitboard.fromBoard(board, player), Bitboard.fromBoard(board, opponent(player)), square);
+        flipped |= 1L << square;
+        for (; flipped != 0; flipped &= flipped - 1) {
+            int cell = Long.numberOfTrailingZeros(flipped);
+            board[cell / 8][cell % 8] = player;
+        }
+    }
+
+    static long getValidMoves(long[] board, int player) {
+        return Bitboard.validMoves(board[player - 1], board[opponent(player) - 1]);
+    }
+
+    static void makeMove(long[] board, int player, int square) {
+        long flipped = Bitboard.flips(board[player - 1], board[opponent(player) - 1], square);
+        board[player - 1] |= flipped | 1L << square;
+        board[opponent(player) - 1] &= ~flipped;
+    }
+
+    private static void printResult(int[][] board) {
+        int whiteCount = Long.bitCount(Bitboard.fromBoard(board, WHITE));
+        int blackCount = Long.bitCount(Bitboard.fromBoard(board, BLACK));
+
+        System.out.println();
+        System.out.println("Game over!");
+        System.out.println("White pieces: " + whiteCount);
+        System.out.println("Black pieces: " + blackCount);
+
+        if (whiteCount > blackCount) {
+            System.out.println("White wins!");
+        } else if (blackCount > whiteCount) {
+            System.out.println("Black wins!");
+        } else {
+            System.out.println("It's a draw!");
+        }
+    }
+
+    public static int minimax(int[][] board, int depth, Evaluator evaluator, int maximizingPlayer, Random random) {
+        return minimax(board, SearchLimits.depth(depth), evaluator, maximizingPlayer, random);
+    }
+
+    public static int minimax(int[][] board, SearchLimits limits, Evaluator evaluator, int maximizingPlayer, Random random) {
+        long white = Bitboard.fromBoard(board, WHITE);
+        long black = Bitboard.fromBoard(board, BLACK);
+        SearchResult cached = findCached(white, black, maximizingPlayer, limits, evaluator, random);
+        if (cached != null) {
+            System.out.printf("Cached move of the %d; score: %d; move: %d; depth: %d%n", maximizingPlayer, cached.getScore(), cached.getMove(), cached.getDepth());
+            return cached.getMove();
+        }
+
+        SearchResult result = search(white, black, maximizingPlayer, limits, evaluator, random);
+        storeCached(white, black, maximizingPlayer, limits, evaluator, result);
+        printSearchResult(maximizingPlayer, result);
+        return result.getMove();
+    }
+
+    /**
+     * Returns the result of an earlier search of the position from the position cache if that went as deep as the limits ask,
+     * or searches the position with the engine of the AI setup and keeps the result for later.
+     */
+    public static SearchResult searchWithCache(long white, long black, int maximizingPlayer, SearchLimits limits, int setup, Random random) {
+        if (setup == MONTE_CARLO_SETUP) {
+            return search(white, black, maximizingPlayer, limits, setup, random);
+        }
+        Evaluator evaluator = evaluator(setup, maximizingPlayer == WHITE ? white : black);
+        SearchResult cached = findCached(white, black, maximizingPlayer, limits, evaluator, random);
+        if (cached != null) {
+            return cached;
+        }
+        SearchResult result = search(white, black, maximizingPlayer, limits, evaluator, random);
+        storeCached(white, black, maximizingPlayer, limits, evaluator, result);
+        return result;
+    }
+
+    private static SearchResult findCached(long white, long black, int player, SearchLimits limits, Evaluator evaluator, Random random) {
+        long evaluatorKey = POSITION_CACHE ? cacheKey(evaluator) : 0;
+        if (evaluatorKey == 0) {
+            return null;
+        }
+        int empties = 64 - Long.bitCount(white | black);
+        // a search that plays every line out to the end is only matched by another one
+        int depth = empties <= limits.getEndgameEmpties() ? empties + 1 : Math.min(limits.getMaxDepth(), empties + 1);
+        return PositionCacheHolder.CACHE.find(white, black, player == WHITE, evaluatorKey, depth, random);
+    }
+
+    private static void storeCached(long white, long black, int player, SearchLimits limits, Evaluator evaluator, SearchResult result) {
+        long evaluatorKey = POSITION_CACHE ? cacheKey(evaluator) : 0;
+        if (evaluatorKey == 0 || result.getMove() < 1) {
+            return;
+        }
+        int empties = 64 - Long.bitCount(white | black);
+        // the search stops deepening after two iterations once it solves every move to the end
+        int depth = empties <= limits.getEndgameEmpties() && result.getDepth() > 1 ? empties + 1 : result.getDepth();
+        try {
+            PositionCacheHolder.CACHE.store(white, black, player == WHITE, evaluatorKey, result.getMove(), result.getScore(), depth);
+        } catch (IOException e) {
+            System.err.println("Position cache " + PositionCache.DEFAULT_FILE + " could not be written, it is kept in memory from now on: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the key of the evaluator in the position cache, which outlives the process, so the keys stay the same
+     * from one run to the next; 0 for evaluators the cache does not keep results of, and for none.
+     */
+    private static long cacheKey(Evaluator evaluator) {
+        if (evaluator == PIECES_EVALUATOR) {
+            return 1;
+        } else if (evaluator == WEIGHTS_EVALUATOR) {
+            return 2;
+        } else if (evaluator == WEIGHTS_NO_PENALTIES_EVALUATOR) {
+            return 3;
+        } else if (evaluator == PatternEvaluatorHolder.EVALUATOR) {
+            // new weights make new scores
+            return PatternEvaluatorHolder.EVALUATOR.fingerprint() << 3 | 4;
+        }
+        return 0;
+    }
+
+    private static void printSearchResult(int maximizingPlayer, SearchResult result) {
+        SearchStatistics statistics = result.getStatistics();
+        System.out.printf("Move of the %d; score: %d; move: %d; depth: %d; nodes: %d; nodes per second: %d; evaluations: %d; cutoffs: %d; branching factor: %.1f; thread utilization: %.0f%%%n",
+                maximizingPlayer, result.getScore(), result.getMove(), result.getDepth(), statistics.getNodes(), statistics.getNodesPerSecond(),
+                statistics.getEvaluations(), statistics.getCutoffs(), statistics.getBranchingFactor(), statistics.getAverageThreadUtilization() * 100);
+        System.out.printf("Transposition table hit rate: %.1f%%; collision rate: %.1f%%%n", transpositionTable.hitRate() * 100, transpositionTable.collisionRate() * 100);
+    }
+
+    /**
+     * Searches the position with the engine of an AI setup (1 to 6): the tree search for setup 6, the alpha-beta search
+     * with the evaluator of the setup otherwise.
+     */
+    public static SearchResult search(long white, long black, int maximizingPlayer, SearchLimits limits, int setup, Random random) {
+        return search(white, black, maximizingPlayer, limits, setup, random, new AtomicBoolean());
+    }
+
+    /**
+     * Searches like above until cancelled is set.
+     */
+    public static SearchResult search(long white, long black, int maximizingPlayer, SearchLimits limits, int setup, Random random,
+                                      AtomicBoolean cancelled) {
+        if (setup == MONTE_CARLO_SETUP) {
+            SearchResult result = monteCarloTrees.search(white, black, maximizingPlayer, limits, random, cancelled);
+            if (result.getStatistics() != null) {
+                metrics.record(result.getStatistics());
+            }
+            return result;
+        }
+        Evaluator evaluator = evaluator(setup, maximizingPlayer == WHITE ? white : black);
+        return search(white, black, maximizingPlayer, limits, evaluator, random, cancelled);
+    }
+
+    /**
+     * Searches the position with the given pieces without consulting the opening book or printing anything.
+     */
+    public static SearchResult search(long white, long black, int maximizingPlayer, SearchLimits limits, Evaluator evaluator, Random random) {
+        return search(white, black, maximizingPlayer, limits, evaluator, random, new AtomicBoolean());
+    }
+
+    /**
+     * Searches like above until cancelled is set. A search cancelled before its first iteration completed has no move.
+     */
+    public static SearchResult search(long white, long black, int maximizingPlayer, SearchLimits limits, Evaluator evaluator, Random random,
+                                      AtomicBoolean cancelled) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+
+        long[] position = {white, black};
+        Search search = new Search(evaluator, maximizingPlayer, transpositionTable, limits, new MoveOrdering(POSITION_WEIGHTS), cancelled);
+        transpositionTable.newSearch();
+        int[] rootSquares = toSquares(getValidMoves(position, maximizingPlayer));
+        int[] rootScores = new int[rootSquares.length];
+        int emptySquares = 64 - Long.bitCount(white | black);
+        int completedDepth = 0;
+        // best score of each completed iteration; scores of odd and even depths differ, so the guess comes from two iterations back
+        int[] iterationScores = new int[limits.getMaxDepth() + 1];
+        long previousIterationNodes = 0;
+        long lastIterationNodes = 0;
+
+        for (int depth = 1; depth <= limits.getMaxDepth() && rootSquares.length > 0; depth++) {
+            long nodesBefore = search.getNodes();
+            int[] scores = searchRoot(position, rootSquares, depth, iterationScores[Math.max(depth - 2, 0)], search);
+            if (scores == null) {
+                break;
+            }
+            rootScores = scores;
+            completedDepth = depth;
+            previousIterationNodes = lastIterationNodes;
+            lastIterationNodes = search.getNodes() - nodesBefore;
+            // the next iteration starts with the best moves of this one
+            sortByScore(rootSquares, rootScores);
+            iterationScores[depth] = rootScores[0];
+            // one ply more than there are empty squares reaches the end of every line, deeper iterations change nothing,
+            // neither do they once every root move has been solved exactly
+            if (depth > emptySquares || depth > 1 && emptySquares <= limits.getEndgameEmpties()) {
+                break;
+            }
+        }
+
+        int bestMove = -1;
+        int bestMoveVal = Integer.MIN_VALUE;
+        int[] rootMoves = new int[rootSquares.length];
+        for (int i = 0; i < rootSquares.length; i++) {
+            int move = rootSquares[i] + 1;
+            int currMoveVal = rootScores[i];
+            rootMoves[i] = move;
+            // add some random, so every game is different
+            if (currMoveVal == bestMoveVal && random.nextInt(100) > 50) {
+                bestMove = move;
+            } else if (currMoveVal >= bestMoveVal) {
+                bestMoveVal = currMoveVal;
+                bestMove = move;
+            }
+        }
+        // cancelled before the first iteration completed, the scores are not scores of a search
+        if (completedDepth == 0) {
+            bestMove = -1;
+            bestMoveVal = 0;
+        }
+
+        long elapsedNanos = System.nanoTime() - startTime;
+        double branchingFactor = previousIterationNodes > 0 ? lastIterationNodes / (double) previousIterationNodes : lastIterationNodes;
+        double[] threadUtilization = search.threadUtilization(elapsedNanos, executorService.getParallelism());
+        SearchStatistics statistics = new SearchStatistics(maximizingPlayer, bestMove, bestMoveVal, completedDepth, search.getNodes(),
+                search.getEvaluations(), search.getCutoffs(), branchingFactor, elapsedNanos / 1_000_000, threadUtilization);
+        metrics.record(statistics);
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = maximizingPlayer;
+            event.move = bestMove;
+            event.score = bestMoveVal;
+            event.depth = completedDepth;
+            event.nodes = statistics.getNodes();
+            event.evaluations = statistics.getEvaluations();
+            event.cutoffs = statistics.getCutoffs();
+            event.branchingFactor = branchingFactor;
+            event.threadUtilization = statistics.getAverageThreadUtilization();
+            event.commit();
+        }
+        return new SearchResult(bestMove, bestMoveVal, completedDepth, search.getNodes(), rootMoves, rootScores, statistics);
+    }
+
+    /**
+     * Returns totals over all searches so far, for a host process to poll.
+     */
+    public static SearchMetrics.Snapshot getMetrics() {
+        return metrics.snapshot();
+    }
+
+    /**
+     * Searches every root move to the given depth with the algorithm of the search, starting from the guessed score.
+     * Returns the score of each move or null if the search was stopped before all of them finished.
+     * The best moves have their exact score, the others may have an upper bound lower than it.
+     */
+    private static int[] searchRoot(long[] position, int[] rootSquares, int depth, int guess, Search search) {
+        IterationEvent event = new IterationEvent();
+        event.begin();
+        long nodesBefore = search.getNodes();
+        int[] scores;
+        if (search.getAlgorithm() == SearchAlgorithm.MTDF) {
+            scores = searchMtdf(position, rootSquares, depth, guess, search);
+        } else if (search.getAlgorithm() == SearchAlgorithm.ASPIRATION && depth > 2) {
+            scores = searchAspiration(position, rootSquares, depth, guess, search);
+        } else {
+            scores = searchRootMoves(position, rootSquares, depth, Integer.MIN_VALUE, Integer.MAX_VALUE, true, search);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.player = search.getMaximizingPlayer();
+            event.depth = depth;
+            event.nodes = search.getNodes() - nodesBefore;
+            event.completed = scores != null;
+            event.commit();
+        }
+        return scores;
+    }
+
+    /**
+     * Starts with a window around the score of the previous iteration and widens it on the side the score fell out of until it does not.
+     */
+    private static int[] searchAspiration(long[] position, int[] rootSquares, int depth, int guess, Search search) {
+        int window = ASPIRATION_WINDOW;
+        int alpha = guess - window;
+        int beta = guess + window;
+        while (true) {
+            int[] scores = searchRootMoves(position, rootSquares, depth, alpha, beta, true, search);
+            if (scores == null) {
+                return null;
+            }
+            int best = Arrays.stream(scores).max().getAsInt();
+            window *= 4;
+            if (best <= alpha && alpha != Integer.MIN_VALUE) {
+                alpha = best - window > -MAX_SCORE ? best - window : Integer.MIN_VALUE;
+            } else if (best >= beta && beta != Integer.MAX_VALUE) {
+                beta = best + window < MAX_SCORE ? best + window : Integer.MAX_VALUE;
+            } else {
+                return scores;
+            }
+        }
+    }
+
+    /**
+     * Narrows the score of the root down with null window searches, each telling whether it is below the window or not.
+     * Every root move is tested by itself, the best moves are the ones proven to reach the score.
+     */
+    private static int[] searchMtdf(long[] position, int[] rootSquares, int depth, int guess, Search search) {
+        int[] lowerBounds = new int[rootSquares.length];
+        int[] upperBounds = new int[rootSquares.length];
+        Arrays.fill(lowerBounds, Integer.MIN_VALUE);
+        Arrays.fill(upperBounds, Integer.MAX_VALUE);
+        int lowerBound = Integer.MIN_VALUE;
+        int upperBound = Integer.MAX_VALUE;
+        int score = guess;
+        while (lowerBound < upperBound) {
+            int beta = score == lowerBound ? score + 1 : score;
+            int[] scores = searchRootMoves(position, rootSquares, depth, beta - 1, beta, false, search);
+            if (scores == null) {
+                return null;
+            }
+            score = Integer.MIN_VALUE;
+            for (int i = 0; i < scores.length; i++) {
+                score = Math.max(score, scores[i]);
+                if (scores[i] >= beta) {
+                    lowerBounds[i] = Math.max(lowerBounds[i], scores[i]);
+                } else {
+                    upperBounds[i] = Math.min(upperBounds[i], scores[i]);
+                }
+            }
+            if (score < beta) {
+                upperBound = score;
+            } else {
+                lowerBound = score;
+            }
+        }
+
+        // moves that may still score as much as the best one are tested against its score
+        int[] scores = new int[rootSquares.length];
+        for (int i = 0; i < rootSquares.length; i++) {
+            if (lowerBounds[i] < score && upperBounds[i] >= score) {
+                int[] test = searchRootMoves(position, new int[]{rootSquares[i]}, depth, score - 1, score, false, search);
+                if (test == null) {
+                    return null;
+                }
+                upperBounds[i] = test[0];
+                lowerBounds[i] = test[0] >= score ? score : Integer.MIN_VALUE;
+            }
+            scores[i] = lowerBounds[i] >= score ? score : upperBounds[i];
+        }
+        return scores;
+    }
+
+    /**
+     * Searches the root moves in parallel with the given window. With raiseAlpha the moves share the best score found so far,
+     * so a move only gets an exact score when it is at least as good as the best one.
+     */
+    private static int[] searchRootMoves(long[] position, int[] rootSquares, int depth, int alpha, int beta, boolean raiseAlpha, Search search) {
+        int maximizingPlayer = search.getMaximizingPlayer();
+        search.startIteration(depth, 64 - Long.bitCount(position[0] | position[1]));
+        List<MinimizeTask> tasks = new ArrayList<>();
+        for (int square : rootSquares) {
+            MinimizeTask task = new MinimizeTask(child(position, maximizingPlayer, square), opponent(maximizingPlayer), depth - 1, alpha, beta, search, square, raiseAlpha);
+            executorService.execute(task);
+            tasks.add(task);
+        }
+
+        int[] scores = new int[rootSquares.length];
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                scores[i] = tasks.get(i).get();
+            } catch (InterruptedException e) {
+                // an interrupted caller wants no more of the search, the iteration has no scores
+                Thread.currentThread().interrupt();
+                search.stop();
+            } catch (ExecutionException e) {
+                // a move without a score must not be played, the failure goes to the caller
+                search.stop();
+                for (MinimizeTask task : tasks) {
+                    task.cancel(true);
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+            if (search.isStopped()) {
+                for (MinimizeTask task : tasks) {
+                    task.cancel(true);
+                }
+                return null;
+            }
+        }
+        return scores;
+    }
+
+    private static int[] toSquares(long moves) {
+        int[] squares = new int[Long.bitCount(moves)];
+        for (int i = 0; moves != 0; moves &= moves - 1, i++) {
+            squares[i] = Long.numberOfTrailingZeros(moves);
+        }
+        return squares;
+    }
+
+    private static void sortByScore(int[] squares, int[] scores) {
+        for (int i = 1; i < squares.length; i++) {
+            int square = squares[i];
+            int score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                squares[j + 1] = squares[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            squares[j + 1] = square;
+            scores[j + 1] = score;
+        }
+    }
+
+    private static int maximize(SearchState state, int currentPlayer, int depth, int alpha, int beta, Search search) {
+        if (search.shouldStop(state)) {
+            return 0;
+        }
+        int maximizingPlayer = search.getMaximizingPlayer();
+        if (search.isEndgame()) {
+            return solveEndgame(state, currentPlayer, alpha, beta, search);
+        }
+        if (depth == 0) {
+            search.countEvaluation();
+            return search.getEvaluator().evaluate(state, maximizingPlayer, opponent(maximizingPlayer));
+        }
+        int opponent = opponent(currentPlayer);
+        long player = state.pieces(currentPlayer);
+        long opponentPieces = state.pieces(opponent);
+        long moves = Bitboard.validMoves(player, opponentPieces);
+        if (moves == 0) {
+            if (Bitboard.validMoves(opponentPieces, player) == 0) {
+                return evaluateBoard(state.pieces(maximizingPlayer), state.pieces(opponent(maximizingPlayer))) * 1000;
+            }
+            // the player has to pass, the opponent moves again
+            return minimize(state, opponent, depth, alpha, beta, search);
+        }
+
+        long key = search.key(state.pieces(WHITE), state.pieces(BLACK), currentPlayer == WHITE);
+        long entry = search.getTranspositionTable().probe(key);
+        alpha = Math.max(alpha, search.getAlpha(beta));
+        int originalAlpha = alpha;
+        if (isCutoff(entry, depth, alpha, beta)) {
+            return TranspositionTable.score(entry);
+        }
+
+        int maxEval = Integer.MIN_VALUE;
+        int bestSquare = -1;
+        int hashSquare = entry != 0 ? TranspositionTable.move(entry) : -1;
+        int ply = search.ply(depth);
+        int[] squares = state.squares(depth);
+        int count = search.getMoveOrdering().order(player, opponentPieces, moves, currentPlayer - 1, hashSquare, ply, depth, squares, state.scores(depth));
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && depth >= SPLIT_DEPTH && i < count - 1) {
+                List<MinimizeTask> tasks = new ArrayList<>();
+                for (; i < count; i++) {
+                    tasks.add(new MinimizeTask(state.child(currentPlayer, opponent, squares[i]), opponent, depth - 1, alpha, beta, search, squares[i], false));
+                }
+                for (MinimizeTask task : ForkJoinTask.invokeAll(tasks)) {
+                    int eval = task.join();
+                    if (eval > maxEval) {
+                        maxEval = eval;
+                        bestSquare = task.square;
+                    }
+                }
+                break;
+            }
+
+            int square = squares[i];
+            state.makeMove(currentPlayer, opponent, square, depth);
+            int eval = i == 0 ? minimize(state, opponent, depth - 1, alpha, beta, search) : scoutMinimize(state, opponent, depth - 1, alpha, beta, search);
+            state.undoMove(currentPlayer, opponent, square, depth);
+            if (search.isStopped()) {
+                return eval;
+            }
+
+            if (eval > maxEval) {
+                maxEval = eval;
+                bestSquare = square;
+            }
+            alpha = Math.max(alpha, Math.max(eval, search.getAlpha(beta)));
+            if (beta <= alpha) {
+                search.countCutoff();
+                search.getMoveOrdering().cutoff(currentPlayer - 1, square, ply, depth);
+                break;
+            }
+        }
+        if (search.isStopped()) {
+            return maxEval;
+        }
+        int bound = bound(maxEval, Math.max(originalAlpha, search.getAlpha(beta)), beta);
+        // when every move failed low none of them is known to be best, the one that was tried first stays in the table
+        search.getTranspositionTable().store(key, depth, bound, maxEval, bound == TranspositionTable.UPPER && hashSquare >= 0 ? hashSquare : bestSquare);
+        return maxEval;
+    }
+
+    private static int minimize(SearchState state, int currentPlayer, int depth, int alpha, int beta, Search search) {
+        if (search.shouldStop(state)) {
+            return 0;
+        }
+        int maximizingPlayer = search.getMaximizingPlayer();
+        if (search.isEndgame()) {
+            return solveEndgame(state, currentPlayer, alpha, beta, search);
+        }
+        if (depth == 0) {
+            search.countEvaluation();
+            return search.getEvaluator().evaluate(state, maximizingPlayer, opponent(maximizingPlayer));
+        }
+        int opponent = opponent(currentPlayer);
+        long player = state.pieces(currentPlayer);
+        long opponentPieces = state.pieces(opponent);
+        long moves = Bitboard.validMoves(player, opponentPieces);
+        if (moves == 0) {
+            if (Bitboard.validMoves(opponentPieces, player) == 0) {
+                return evaluateBoard(state.pieces(maximizingPlayer), state.pieces(opponent(maximizingPlayer))) * 1000;
+            }
+            // the player has to pass, the opponent moves again
+            return maximize(state, opponent, depth, alpha, beta, search);
+        }
+
+        long key = search.key(state.pieces(WHITE), state.pieces(BLACK), currentPlayer == WHITE);
+        long entry = search.getTranspositionTable().probe(key);
+        alpha = Math.max(alpha, search.getAlpha(beta));
+        if (isCutoff(entry, depth, alpha, beta)) {
+            return TranspositionTable.score(entry);
+        }
+
+        int originalBeta = beta;
+        int minEval = Integer.MAX_VALUE;
+        int bestSquare = -1;
+        int hashSquare = entry != 0 ? TranspositionTable.move(entry) : -1;
+        int ply = search.ply(depth);
+        int[] squares = state.squares(depth);
+        int count = search.getMoveOrdering().order(player, opponentPieces, moves, currentPlayer - 1, hashSquare, ply, depth, squares, state.scores(depth));
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && depth >= SPLIT_DEPTH && i < count - 1) {
+                List<MaximizeTask> tasks = new ArrayList<>();
+                for (; i < count; i++) {
+                    tasks.add(new MaximizeTask(state.child(currentPlayer, opponent, squares[i]), opponent, depth - 1, alpha, beta, search, squares[i]));
+                }
+                for (MaximizeTask task : ForkJoinTask.invokeAll(tasks)) {
+                    int eval = task.join();
+                    if (eval < minEval) {
+                        minEval = eval;
+                        bestSquare = task.square;
+                    }
+                }
+                break;
+            }
+
+            int square = squares[i];
+            state.makeMove(currentPlayer, opponent, square, depth);
+            int eval = i == 0 ? maximize(state, opponent, depth - 1, alpha, beta, search) : scoutMaximize(state, opponent, depth - 1, alpha, beta, search);
+            state.undoMove(currentPlayer, opponent, square, depth);
+            if (search.isStopped()) {
+                return eval;
+            }
+
+            if (eval < minEval) {
+                minEval = eval;
+                bestSquare = square;
+            }
+            beta = Math.min(beta, eval);
+            alpha = Math.max(alpha, search.getAlpha(beta));
+            if (beta <= alpha) {
+                search.countCutoff();
+                search.getMoveOrdering().cutoff(currentPlayer - 1, square, ply, depth);
+                break;
+            }
+        }
+        if (search.isStopped()) {
+            return minEval;
+        }
+        int bound = bound(minEval, Math.max(alpha, search.getAlpha(beta)), originalBeta);
+        search.getTranspositionTable().store(key, depth, bound, minEval, bound == TranspositionTable.LOWER && hashSquare >= 0 ? hashSquare : bestSquare);
+        return minEval;
+    }
+
+    /**
+     * Searches a move after the first one of a max node. With PVS it is first only shown that the move is no better than alpha,
+     * which a null window does with fewer nodes, and searched again with the window above what it proved if it is better.
+     */
+    private static int scoutMinimize(SearchState state, int currentPlayer, int depth, int alpha, int beta, Search search) {
+        if (!search.getAlgorithm().isPrincipalVariation() || alpha == Integer.MIN_VALUE || alpha + 1 >= beta) {
+            return minimize(state, currentPlayer, depth, alpha, beta, search);
+        }
+        int eval = minimize(state, currentPlayer, depth, alpha, alpha + 1, search);
+        if (eval > alpha && eval < beta && !search.isStopped()) {
+            eval = minimize(state, currentPlayer, depth, eval - 1, beta, search);
+        }
+        return eval;
+    }
+
+    private static int scoutMaximize(SearchState state, int currentPlayer, int depth, int alpha, int beta, Search search) {
+        if (!search.getAlgorithm().isPrincipalVariation() || beta == Integer.MAX_VALUE || alpha + 1 >= beta) {
+            return maximize(state, currentPlayer, depth, alpha, beta, search);
+        }
+        int eval = maximize(state, currentPlayer, depth, beta - 1, beta, search);
+        if (eval < beta && eval > alpha && !search.isStopped()) {
+            eval = maximize(state, currentPlayer, depth, alpha, eval + 1, search);
+        }
+        return eval;
+    }
+
+    /**
+     * Solves the position exactly. The solver counts pieces for the side to move,
+     * the search counts thousandths of a piece for the maximizing player, so the window and the result are converted.
+     */
+    private static int solveEndgame(SearchState state, int currentPlayer, int alpha, int beta, Search search) {
+        int low = Math.max(Math.floorDiv(alpha, 1000), -65);
+        int high = Math.min(-Math.floorDiv(-beta, 1000), 65);
+        long player = state.pieces(currentPlayer);
+        long opponent = state.pieces(opponent(currentPlayer));
+        if (currentPlayer == search.getMaximizingPlayer()) {
+            return EndgameSolver.solve(player, opponent, low, high, state, search) * 1000;
+        }
+        return -EndgameSolver.solve(player, opponent, -high, -low, state, search) * 1000;
+    }
+
+    private static boolean isCutoff(long entry, int depth, int alpha, int beta) {
+        if (entry == 0 || TranspositionTable.depth(entry) < depth) {
+            return false;
+        }
+        int score = TranspositionTable.score(entry);
+        int bound = TranspositionTable.bound(entry);
+        return bound == TranspositionTable.EXACT
+                || bound == TranspositionTable.LOWER && score >= beta
+                || bound == TranspositionTable.UPPER && score <= alpha;
+    }
+
+    private static int bound(int score, int alpha, int beta) {
+        if (score <= alpha) {
+            return TranspositionTable.UPPER;
+        }
+        if (score >= beta) {
+            return TranspositionTable.LOWER;
+        }
+        return TranspositionTable.EXACT;
+    }
+
+    static int opponent(int currentPlayer) {
+        return currentPlayer == BLACK ? WHITE : BLACK;
+    }
+
+    private static long[] copyBoard(long[] board) {
+        return Arrays.copyOf(board, board.length);
+    }
+
+    private static long[] child(long[] board, int player, int square) {
+        long[] newBoard = copyBoard(board);
+        makeMove(newBoard, player, square);
+        return newBoard;
+    }
+
+    static int evaluateBoard(long player, long opponent) {
+        return Long.bitCount(player) - Long.bitCount(opponent);
+    }
+
+    static int evaluateBoardWithWeights(long player, long opponent) {
+        return WEIGHT_TABLE.sum(player) - WEIGHT_TABLE.sum(opponent);
+    }
+
+    static int evaluateBoardWithWeightsNoPenalties(long player, long opponent) {
+        return WEIGHT_TABLE_NO_PENALTIES.sum(player) - WEIGHT_TABLE_NO_PENALTIES.sum(opponent);
+    }
+
+    static int positionWeight(int cell) {
+        return POSITION_WEIGHTS[cell / 8][cell % 8];
+    }
+
+    // the tables of the weighted evaluators, shared with the search states that keep their sums
+    static WeightTable weightTable() {
+        return WEIGHT_TABLE;
+    }
+
+    static WeightTable weightTableNoPenalties() {
+        return WEIGHT_TABLE_NO_PENALTIES;
+    }
+
+    private static int[] cellWeights(int[][] weights) {
+        int[] cellWeights = new int[64];
+        for (int cell = 0; cell < 64; cell++) {
+            cellWeights[cell] = weights[cell / 8][cell % 8];
+        }
+        return cellWeights;
+    }
+
+    /**
+     * Returns the evaluator of an AI player setup (1 to 5) for the player owning the given pieces.
+     * The adaptive AI picks one by the number of corners it holds. The tree search of setup 6 has none.
+     */
+    static Evaluator evaluator(int setup, long pieces) {
+        if (setup == 1) {
+            return PIECES_EVALUATOR;
+        } else if (setup == 2) {
+            return WEIGHTS_NO_PENALTIES_EVALUATOR;
+        } else if (setup == 3) {
+            return WEIGHTS_EVALUATOR;
+        } else if (setup == 5) {
+            return PatternEvaluatorHolder.EVALUATOR;
+        } else if (setup == MONTE_CARLO_SETUP) {
+            throw new IllegalArgumentException("AI setup " + setup + " searches without an evaluator");
+        } else if (setup != 4) {
+            throw new IllegalArgumentException("Unknown AI setup: " + setup);
+        }
+        int cornersNum = Long.bitCount(pieces & CORNERS);
+        if (cornersNum >= 2 && cornersNum < 4) {
+            return WEIGHTS_NO_PENALTIES_EVALUATOR;
+        } else if (cornersNum == 4) {
+            return PIECES_EVALUATOR;
+        }
+        return WEIGHTS_EVALUATOR;
+    }
+
+    // tasks are never serialized
+    @SuppressWarnings("serial")
+    private static class MinimizeTask extends RecursiveTask<Integer> {
+        private final long[] board;
+        private final int currentPlayer;
+        private final int depth;
+        private final int alpha;
+        private final int beta;
+        private final Search search;
+        private final int square;
+        private final boolean root;
+
+        public MinimizeTask(long[] board, int currentPlayer, int depth, int alpha, int beta, Search search, int square, boolean root) {
+            this.board = board;
+            this.currentPlayer = currentPlayer;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.search = search;
+            this.square = square;
+            this.root = root;
+        }
+
+        @Override
+        protected Integer compute() {
+            int eval = TaskCpuTime.run(search, this::search);
+            if (root && eval > Integer.MIN_VALUE) {
+                // other root moves are only interesting if they can score at least as much as this one
+                search.raiseAlpha(eval - 1);
+            }
+            return eval;
+        }
+
+        private int search() {
+            SearchState state = SearchState.acquire(board, depth);
+            try {
+                // moves split off after the first one, and root moves once another one has a score, only have to beat that
+                int bound = root ? search.getAlpha(beta) : alpha;
+                return !root || bound > alpha
+                        ? scoutMinimize(state, currentPlayer, depth, Math.max(alpha, bound), beta, search)
+                        : minimize(state, currentPlayer, depth, alpha, beta, search);
+            } finally {
+                state.release();
+            }
+        }
+    }
+
+    // tasks are never serialized
+    @SuppressWarnings("serial")
+    private static class MaximizeTask extends RecursiveTask<Integer> {
+        private final long[] board;
+        private final int currentPlayer;
+        private final int depth;
+        private final int alpha;
+        private final int beta;
+        private final Search search;
+        private final int square;
+
+        public MaximizeTask(long[] board, int currentPlayer, int depth, int alpha, int beta, Search search, int square) {
+            this.board = board;
+            this.currentPlayer = currentPlayer;
+            this.depth = depth;
+            this.alpha = alpha;
+            this.beta = beta;
+            this.search = search;
+            this.square = square;
+        }
+
+        @Override
+        protected Integer compute() {
+            return TaskCpuTime.run(search, this::search);
+        }
+
+        private int search() {
+            SearchState state = SearchState.acquire(board, depth);
+            try {
+                return scoutMaximize(state, currentPlayer, depth, alpha, beta, search);
+            } finally {
+                state.release();
+            }
+        }
+    }
+
+}
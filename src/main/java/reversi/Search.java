@@ -0,0 +1,209 @@
+package reversi;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Search {
+
+    // scores are kept from the point of view of the maximizing player and depend on the evaluator,
+    // so both are mixed into the transposition table key
+    private static final Map<Evaluator, Long> EVALUATOR_KEYS = new ConcurrentHashMap<>();
+    private static final SplittableRandom KEY_RANDOM = new SplittableRandom();
+
+    // evaluations and cutoffs are only counted for the statistics, -Dreversi.statistics=false turns that off;
+    // a constant, so the JIT removes the counting altogether
+    public static final boolean STATISTICS = !"false".equals(System.getProperty("reversi.statistics"));
+
+    private final Evaluator evaluator;
+    private final int maximizingPlayer;
+    private final TranspositionTable transpositionTable;
+    private final long keySalt;
+    private final long deadline;
+    private final long maxNodes;
+    private final int endgameEmpties;
+    private final MoveOrdering moveOrdering;
+    private final SearchAlgorithm algorithm;
+    private final AtomicBoolean cancelled;
+
+    // lower bound for the score of the root, shared by all threads searching below it
+    private final AtomicInteger alpha = new AtomicInteger(Integer.MIN_VALUE);
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    // CPU time of the tasks of this search, by thread id
+    private final Map<Long, LongAdder> cpuTimes = new ConcurrentHashMap<>();
+    private volatile int iterationDepth;
+    private volatile boolean solvingEndgame;
+    private volatile boolean limitsActive;
+    private volatile boolean stopped;
+
+    public Search(Evaluator evaluator, int maximizingPlayer, TranspositionTable transpositionTable, SearchLimits limits, MoveOrdering moveOrdering) {
+        this(evaluator, maximizingPlayer, transpositionTable, limits, moveOrdering, new AtomicBoolean());
+    }
+
+    /**
+     * Setting cancelled stops the search at once, even before its first iteration has completed.
+     */
+    public Search(Evaluator evaluator, int maximizingPlayer, TranspositionTable transpositionTable, SearchLimits limits, MoveOrdering moveOrdering,
+                  AtomicBoolean cancelled) {
+        this.evaluator = evaluator;
+        this.maximizingPlayer = maximizingPlayer;
+        this.transpositionTable = transpositionTable;
+        this.keySalt = EVALUATOR_KEYS.computeIfAbsent(evaluator, e -> nextKey()) * (maximizingPlayer + 1);
+        // a time too long to count in nanoseconds is no limit
+        this.deadline = limits.getMaxMillis() > Long.MAX_VALUE / 4_000_000 ? Long.MAX_VALUE : System.nanoTime() + limits.getMaxMillis() * 1_000_000;
+        this.maxNodes = limits.getMaxNodes();
+        this.endgameEmpties = limits.getEndgameEmpties();
+        this.moveOrdering = moveOrdering;
+        this.algorithm = limits.getAlgorithm();
+        this.cancelled = cancelled;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public int getMaximizingPlayer() {
+        return maximizingPlayer;
+    }
+
+    public TranspositionTable getTranspositionTable() {
+        return transpositionTable;
+    }
+
+    public MoveOrdering getMoveOrdering() {
+        return moveOrdering;
+    }
+
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Returns the shared root bound for a node with the given beta. A root bound at or above beta means the node cannot matter
+     * any more; it is then kept just below beta, so the node still fails high or low with a bound fit for the transposition table.
+     */
+    public int getAlpha(int beta) {
+        return Math.min(alpha.get(), beta - 1);
+    }
+
+    public void raiseAlpha(int value) {
+        alpha.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Resets the shared root bound before the next iteration of deepening.
+     * Limits are only checked once the first iteration has completed, so there is always a move to play.
+     */
+    public void startIteration(int depth, int rootEmpties) {
+        alpha.set(Integer.MIN_VALUE);
+        iterationDepth = depth;
+        limitsActive = depth > 1;
+        solvingEndgame = depth > 1 && rootEmpties <= endgameEmpties;
+    }
+
+    /**
+     * Returns the distance from the root of a node with the given remaining depth.
+     */
+    public int ply(int depth) {
+        return iterationDepth - depth;
+    }
+
+    /**
+     * Counts a visited node and tells whether the search has run out of time or nodes.
+     * The clock and the node total are only looked at every few nodes of the thread owning the state,
+     * so the search may run a few thousand nodes past its limits.
+     */
+    public boolean shouldStop(SearchState state) {
+        if (stopped) {
+            return true;
+        }
+        if (cancelled.get()) {
+            stopped = true;
+            return true;
+        }
+        nodes.increment();
+        if (limitsActive && state.isStopCheckDue()
+                && (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0 || maxNodes != SearchLimits.UNLIMITED && nodes.sum() >= maxNodes)) {
+            stopped = true;
+        }
+        return stopped;
+    }
+
+    /**
+     * Tells whether the positions below the root are solved exactly, which they are when the root has at most
+     * endgameEmpties empty squares. Deciding by the root keeps the solver out of midgame searches, whose deep lines
+     * would otherwise be solved to the end. The first iteration never solves, it has to finish quickly to give a move
+     * to fall back on.
+     */
+    public boolean isEndgame() {
+        return solvingEndgame;
+    }
+
+    /**
+     * Stops the search at once, like cancelling it.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    public long getNodes() {
+        return nodes.sum();
+    }
+
+    public void countEvaluation() {
+        if (STATISTICS) {
+            evaluations.increment();
+        }
+    }
+
+    public void countCutoff() {
+        if (STATISTICS) {
+            cutoffs.increment();
+        }
+    }
+
+    public long getEvaluations() {
+        return evaluations.sum();
+    }
+
+    void addCpuTime(long nanos) {
+        cpuTimes.computeIfAbsent(Thread.currentThread().getId(), id -> new LongAdder()).add(nanos);
+    }
+
+    /**
+     * Returns the share of the elapsed time each of the given number of threads spent on this search, from 0 to 1;
+     * threads that ran none of its tasks count as idle. Empty when the CPU time was not measured.
+     */
+    public double[] threadUtilization(long elapsedNanos, int threads) {
+        if (cpuTimes.isEmpty()) {
+            return new double[0];
+        }
+        double[] utilization = new double[Math.max(threads, cpuTimes.size())];
+        int i = 0;
+        for (LongAdder cpuTime : cpuTimes.values()) {
+            utilization[i++] = Math.min(1, cpuTime.sum() / (double) Math.max(1, elapsedNanos));
+        }
+        return utilization;
+    }
+
+    public long getCutoffs() {
+        return cutoffs.sum();
+    }
+
+    public long key(long white, long black, boolean whiteToMove) {
+        return Zobrist.hash(white, black, whiteToMove) ^ keySalt;
+    }
+
+    private static synchronized long nextKey() {
+        return KEY_RANDOM.nextLong() | 1;
+    }
+}
@@ -0,0 +1,41 @@
+package reversi;
+
+import java.util.Locale;
+
+/**
+ * How the search finds the score of the root. All of them choose the same moves at a fixed depth,
+ * they differ in the number of nodes visited on the way.
+ */
+public enum SearchAlgorithm {
+
+    /**
+     * Alpha-beta with the full window at the root.
+     */
+    ALPHA_BETA,
+
+    /**
+     * Principal variation search: moves after the first one are only shown to be no better with a null window
+     * and searched again with the full window when they turn out to be.
+     */
+    PVS,
+
+    /**
+     * PVS starting every iteration with a narrow window around the score of the previous one, widened when the score falls outside.
+     */
+    ASPIRATION,
+
+    /**
+     * MTD(f): null window searches of the root converging on its score, starting from the score of the previous iteration.
+     */
+    MTDF;
+
+    // -Dreversi.search=alpha_beta|pvs|aspiration|mtdf
+    public static final SearchAlgorithm DEFAULT = valueOf(System.getProperty("reversi.search", "alpha_beta").toUpperCase(Locale.ROOT));
+
+    /**
+     * Tells whether moves after the first one of a node are searched with a null window first.
+     */
+    public boolean isPrincipalVariation() {
+        return this == PVS || this == ASPIRATION;
+    }
+}
@@ -0,0 +1,45 @@
+package reversi;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for the search of one move, from the first iteration of deepening to the chosen move.
+ */
+@Name("reversi.Search")
+@Label("Search")
+@Category("Reversi")
+@Description("Search of one move")
+class SearchEvent extends Event {
+
+    @Label("Player")
+    int player;
+
+    @Label("Move")
+    int move;
+
+    @Label("Score")
+    int score;
+
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Cutoffs")
+    long cutoffs;
+
+    @Label("Branching Factor")
+    double branchingFactor;
+
+    @Label("Thread Utilization")
+    @Description("Average share of the search time the threads of the pool spent computing")
+    double threadUtilization;
+}
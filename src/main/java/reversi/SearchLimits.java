@@ -0,0 +1,62 @@
+package reversi;
+
+public class SearchLimits {
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final int maxDepth;
+    private final long maxMillis;
+    private final long maxNodes;
+    private final int endgameEmpties;
+    private final SearchAlgorithm algorithm;
+
+    public SearchLimits(int maxDepth, long maxMillis, long maxNodes) {
+        this(maxDepth, maxMillis, maxNodes, 0);
+    }
+
+    /**
+     * Positions with at most endgameEmpties empty squares are played out to the end instead of being evaluated.
+     */
+    public SearchLimits(int maxDepth, long maxMillis, long maxNodes, int endgameEmpties) {
+        this(maxDepth, maxMillis, maxNodes, endgameEmpties, SearchAlgorithm.DEFAULT);
+    }
+
+    public SearchLimits(int maxDepth, long maxMillis, long maxNodes, int endgameEmpties, SearchAlgorithm algorithm) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("Depth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+        this.maxMillis = maxMillis;
+        this.maxNodes = maxNodes;
+        this.endgameEmpties = endgameEmpties;
+        this.algorithm = algorithm;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, UNLIMITED, UNLIMITED);
+    }
+
+    public static SearchLimits depth(int depth, SearchAlgorithm algorithm) {
+        return new SearchLimits(depth, UNLIMITED, UNLIMITED, 0, algorithm);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public int getEndgameEmpties() {
+        return endgameEmpties;
+    }
+
+    public SearchAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+}
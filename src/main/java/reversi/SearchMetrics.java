@@ -0,0 +1,79 @@
+package reversi;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals over every search, cheap enough to be polled by a host process at any time.
+ */
+public class SearchMetrics {
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder nodes = new LongAdder();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder elapsedMillis = new LongAdder();
+    private volatile SearchStatistics last;
+
+    public void record(SearchStatistics statistics) {
+        searches.increment();
+        nodes.add(statistics.getNodes());
+        evaluations.add(statistics.getEvaluations());
+        cutoffs.add(statistics.getCutoffs());
+        elapsedMillis.add(statistics.getElapsedMillis());
+        last = statistics;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(searches.sum(), nodes.sum(), evaluations.sum(), cutoffs.sum(), elapsedMillis.sum(), last);
+    }
+
+    /**
+     * The totals at one point in time. The counters are read one after another while searches may finish,
+     * so they can be off by the last search.
+     */
+    public static class Snapshot {
+
+        private final long searches;
+        private final long nodes;
+        private final long evaluations;
+        private final long cutoffs;
+        private final long elapsedMillis;
+        private final SearchStatistics last;
+
+        public Snapshot(long searches, long nodes, long evaluations, long cutoffs, long elapsedMillis, SearchStatistics last) {
+            this.searches = searches;
+            this.nodes = nodes;
+            this.evaluations = evaluations;
+            this.cutoffs = cutoffs;
+            this.elapsedMillis = elapsedMillis;
+            this.last = last;
+        }
+
+        public long getSearches() {
+            return searches;
+        }
+
+        public long getNodes() {
+            return nodes;
+        }
+
+        public long getEvaluations() {
+            return evaluations;
+        }
+
+        public long getCutoffs() {
+            return cutoffs;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * Returns the statistics of the latest search or null if there was none yet.
+         */
+        public SearchStatistics getLast() {
+            return last;
+        }
+    }
+}
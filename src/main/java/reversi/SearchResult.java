@@ -0,0 +1,64 @@
+package reversi;
+
+public class SearchResult {
+
+    private final int move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final int[] rootMoves;
+    private final int[] rootScores;
+    private final SearchStatistics statistics;
+
+    public SearchResult(int move, int score, int depth, long nodes, int[] rootMoves, int[] rootScores) {
+        this(move, score, depth, nodes, rootMoves, rootScores, null);
+    }
+
+    public SearchResult(int move, int score, int depth, long nodes, int[] rootMoves, int[] rootScores, SearchStatistics statistics) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.rootMoves = rootMoves;
+        this.rootScores = rootScores;
+        this.statistics = statistics;
+    }
+
+    /**
+     * Returns the chosen move numbered from 1 to 64 like the moves of the game, or -1 when there was no move.
+     */
+    public int getMove() {
+        return move;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns every move searched at the root, best first, with the scores from getRootScores().
+     * Scores of moves that could not beat the best one are upper bounds.
+     */
+    public int[] getRootMoves() {
+        return rootMoves;
+    }
+
+    public int[] getRootScores() {
+        return rootScores;
+    }
+
+    /**
+     * Returns what the search did to find the move, or null when the move did not come from a search.
+     */
+    public SearchStatistics getStatistics() {
+        return statistics;
+    }
+}
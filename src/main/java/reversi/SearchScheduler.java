@@ -0,0 +1,137 @@
+package reversi;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the searches of many games on a fixed number of search slots. Searches with a short time budget go first;
+ * among the rest the game that has used the least search time so far goes first, so no game can starve the others.
+ * Requests beyond the pending limit are rejected instead of queued.
+ */
+public class SearchScheduler {
+
+    // searches with at most this budget are answered before longer ones
+    private static final long SHORT_BUDGET_MILLIS = 1000;
+
+    private static final Comparator<Request> ORDER = Comparator
+            .comparingInt((Request request) -> request.limits.getMaxMillis() <= SHORT_BUDGET_MILLIS ? 0 : 1)
+            .thenComparingLong(request -> request.usedMillis)
+            .thenComparingLong(request -> request.sequence);
+
+    private final PriorityBlockingQueue<Request> queue = new PriorityBlockingQueue<>(64, ORDER);
+    private final Map<Object, LongAdder> usedMillis = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final int maxPending;
+    private final Thread[] workers;
+
+    public SearchScheduler(int concurrency, int maxPending) {
+        this.maxPending = maxPending;
+        workers = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Thread(this::work, "search-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /**
+     * Starts accounting the search time of a game, until it is forgotten.
+     */
+    public void register(Object game) {
+        usedMillis.putIfAbsent(game, new LongAdder());
+    }
+
+    /**
+     * Queues a search for the game. The future fails with RejectedExecutionException when too many searches are
+     * waiting already. The searches of games that are not registered count as having used no time.
+     */
+    public CompletableFuture<SearchResult> submit(Object game, long white, long black, int player, SearchLimits limits,
+                                                  int setup, Random random) {
+        CompletableFuture<SearchResult> result = new CompletableFuture<>();
+        if (pending.incrementAndGet() > maxPending) {
+            pending.decrementAndGet();
+            result.completeExceptionally(new RejectedExecutionException("Too many searches waiting: " + maxPending));
+            return result;
+        }
+        // a game forgotten while its search was on the way is not accounted again
+        LongAdder accounted = usedMillis.get(game);
+        long used = accounted != null ? accounted.sum() : 0;
+        queue.add(new Request(game, white, black, player, limits, setup, random, used, sequence.incrementAndGet(), result));
+        return result;
+    }
+
+    public int getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Drops the search time accounted to a game that has ended.
+     */
+    public void forget(Object game) {
+        usedMillis.remove(game);
+    }
+
+    public void shutdown() {
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void work() {
+        while (true) {
+            Request request;
+            try {
+                request = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            pending.decrementAndGet();
+            long start = System.nanoTime();
+            try {
+                request.result.complete(Reversi.searchWithCache(request.white, request.black, request.player, request.limits, request.setup, request.random));
+            } catch (RuntimeException e) {
+                request.result.completeExceptionally(e);
+            }
+            LongAdder used = usedMillis.get(request.game);
+            if (used != null) {
+                used.add((System.nanoTime() - start) / 1_000_000);
+            }
+        }
+    }
+
+    private static class Request {
+        private final Object game;
+        private final long white;
+        private final long black;
+        private final int player;
+        private final SearchLimits limits;
+        private final int setup;
+        private final Random random;
+        private final long usedMillis;
+        private final long sequence;
+        private final CompletableFuture<SearchResult> result;
+
+        Request(Object game, long white, long black, int player, SearchLimits limits, int setup, Random random,
+                long usedMillis, long sequence, CompletableFuture<SearchResult> result) {
+            this.game = game;
+            this.white = white;
+            this.black = black;
+            this.player = player;
+            this.limits = limits;
+            this.setup = setup;
+            this.random = random;
+            this.usedMillis = usedMillis;
+            this.sequence = sequence;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package reversi;
+
+import java.util.ArrayDeque;
+
+/**
+ * Board of one search task with everything a node needs preallocated, so searching does not create garbage.
+ * Buffers are indexed by the remaining depth of the node using them.
+ * States are pooled per thread; a thread running a nested task while it waits for a join simply takes the next one.
+ */
+public class SearchState {
+
+    private static final int INITIAL_DEPTH = 64;
+    // nodes between two checks of the search limits
+    private static final int STOP_CHECK_INTERVAL = 1024;
+
+    private static final ThreadLocal<ArrayDeque<SearchState>> POOL = ThreadLocal.withInitial(ArrayDeque::new);
+
+    // the two weight tables of the evaluators
+    private static final WeightTable WEIGHT_TABLE = Reversi.weightTable();
+    private static final WeightTable WEIGHT_TABLE_NO_PENALTIES = Reversi.weightTableNoPenalties();
+
+    // pieces of each player and their weighted sums, indexed by player - 1
+    private final long[] board = new long[2];
+    private final int[] weights = new int[2];
+    private final int[] weightsNoPenalties = new int[2];
+    private long[] flips;
+    // weights of the flipped pieces, so an undo does not have to sum them again
+    private int[] flipWeights;
+    private int[] flipWeightsNoPenalties;
+    private int[][] squares;
+    private int[][] scores;
+    private final int[][] endgameSquares = new int[61][64];
+    private final int[][] endgameScores = new int[61][64];
+    // kept when the state goes back to the pool, so the checks of a thread stay evenly spaced over its short tasks
+    private int stopCheckCountdown = STOP_CHECK_INTERVAL;
+
+    private SearchState(int depth) {
+        allocate(depth);
+    }
+
+    public static SearchState acquire(long[] board, int depth) {
+        SearchState state = POOL.get().pollFirst();
+        if (state == null) {
+            state = new SearchState(Math.max(depth, INITIAL_DEPTH));
+        } else if (state.flips.length <= depth) {
+            state.allocate(depth);
+        }
+        for (int i = 0; i < 2; i++) {
+            state.board[i] = board[i];
+            state.weights[i] = WEIGHT_TABLE.sum(board[i]);
+            state.weightsNoPenalties[i] = WEIGHT_TABLE_NO_PENALTIES.sum(board[i]);
+        }
+        return state;
+    }
+
+    public void release() {
+        POOL.get().addFirst(this);
+    }
+
+    public long pieces(int player) {
+        return board[player - 1];
+    }
+
+    /**
+     * Returns the sum of the position weights of the player's pieces, kept up to date by the moves.
+     */
+    public int weightedSum(int player) {
+        return weights[player - 1];
+    }
+
+    public int weightedSumNoPenalties(int player) {
+        return weightsNoPenalties[player - 1];
+    }
+
+    /**
+     * Counts a node and tells whether the search limits are due to be checked.
+     */
+    public boolean isStopCheckDue() {
+        if (--stopCheckCountdown > 0) {
+            return false;
+        }
+        stopCheckCountdown = STOP_CHECK_INTERVAL;
+        return true;
+    }
+
+    public int[] squares(int depth) {
+        return squares[depth];
+    }
+
+    public int[] scores(int depth) {
+        return scores[depth];
+    }
+
+    /**
+     * Buffers of the endgame solver, indexed by the number of empty squares so they never meet the ones above.
+     */
+    public int[] endgameSquares(int empties) {
+        return endgameSquares[empties];
+    }
+
+    public int[] endgameScores(int empties) {
+        return endgameScores[empties];
+    }
+
+    public void makeMove(int player, int opponent, int square, int depth) {
+        long flipped = Bitboard.flips(board[player - 1], board[opponent - 1], square);
+        flips[depth] = flipped;
+        board[player - 1] |= flipped | 1L << square;
+        board[opponent - 1] &= ~flipped;
+
+        int flippedWeight = WEIGHT_TABLE.sum(flipped);
+        int flippedWeightNoPenalties = WEIGHT_TABLE_NO_PENALTIES.sum(flipped);
+        flipWeights[depth] = flippedWeight;
+        flipWeightsNoPenalties[depth] = flippedWeightNoPenalties;
+        weights[player - 1] += flippedWeight + WEIGHT_TABLE.weight(square);
+        weights[opponent - 1] -= flippedWeight;
+        weightsNoPenalties[player - 1] += flippedWeightNoPenalties + WEIGHT_TABLE_NO_PENALTIES.weight(square);
+        weightsNoPenalties[opponent - 1] -= flippedWeightNoPenalties;
+    }
+
+    public void undoMove(int player, int opponent, int square, int depth) {
+        long flipped = flips[depth];
+        board[player - 1] &= ~(flipped | 1L << square);
+        board[opponent - 1] |= flipped;
+
+        weights[player - 1] -= flipWeights[depth] + WEIGHT_TABLE.weight(square);
+        weights[opponent - 1] += flipWeights[depth];
+        weightsNoPenalties[player - 1] -= flipWeightsNoPenalties[depth] + WEIGHT_TABLE_NO_PENALTIES.weight(square);
+        weightsNoPenalties[opponent - 1] += flipWeightsNoPenalties[depth];
+    }
+
+    /**
+     * Returns the board after the move, for searching it in another task.
+     */
+    public long[] child(int player, int opponent, int square) {
+        long[] child = board.clone();
+        long flipped = Bitboard.flips(board[player - 1], board[opponent - 1], square);
+        child[player - 1] |= flipped | 1L << square;
+        child[opponent - 1] &= ~flipped;
+        return child;
+    }
+
+    private void allocate(int depth) {
+        flips = new long[depth + 1];
+        flipWeights = new int[depth + 1];
+        flipWeightsNoPenalties = new int[depth + 1];
+        squares = new int[depth + 1][64];
+        scores = new int[depth + 1][64];
+    }
+}
@@ -0,0 +1,98 @@
+package reversi;
+
+/**
+ * What the search of one move did and how long it took.
+ */
+public class SearchStatistics {
+
+    private final int player;
+    private final int move;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long evaluations;
+    private final long cutoffs;
+    private final double branchingFactor;
+    private final long elapsedMillis;
+    private final double[] threadUtilization;
+
+    public SearchStatistics(int player, int move, int score, int depth, long nodes, long evaluations, long cutoffs,
+                            double branchingFactor, long elapsedMillis, double[] threadUtilization) {
+        this.player = player;
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.evaluations = evaluations;
+        this.cutoffs = cutoffs;
+        this.branchingFactor = branchingFactor;
+        this.elapsedMillis = elapsedMillis;
+        this.threadUtilization = threadUtilization;
+    }
+
+    public int getPlayer() {
+        return player;
+    }
+
+    public int getMove() {
+        return move;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of positions scored by the evaluator, 0 when statistics are turned off.
+     */
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    /**
+     * Returns the number of nodes left before all of their moves were searched, 0 when statistics are turned off.
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Returns how many times more nodes the last iteration of deepening visited than the one before it.
+     */
+    public double getBranchingFactor() {
+        return branchingFactor;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000 / Math.max(1, elapsedMillis);
+    }
+
+    /**
+     * Returns the share of the search time each thread of the pool spent on this search, from 0 to 1; the work of
+     * other searches running at the same time is not counted. Empty when statistics are turned off or the JVM cannot
+     * measure thread CPU time.
+     */
+    public double[] getThreadUtilization() {
+        return threadUtilization;
+    }
+
+    public double getAverageThreadUtilization() {
+        double sum = 0;
+        for (double utilization : threadUtilization) {
+            sum += utilization;
+        }
+        return threadUtilization.length == 0 ? 0 : sum / threadUtilization.length;
+    }
+}
@@ -0,0 +1,47 @@
+package reversi;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.IntSupplier;
+
+/**
+ * Charges the CPU time of the threads running the tasks of a search to that search, so searches running at the same
+ * time on the shared pool each see their own work only. A thread that runs a task of another search while it waits
+ * for a join charges that time to the other search.
+ */
+final class TaskCpuTime {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean MEASURED = Search.STATISTICS && THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+    // the search of the task the thread is running and the CPU time of the thread when it was last charged
+    private static final ThreadLocal<TaskCpuTime> RUNNING = ThreadLocal.withInitial(TaskCpuTime::new);
+
+    private Search search;
+    private long since;
+
+    private TaskCpuTime() {
+    }
+
+    static int run(Search search, IntSupplier task) {
+        if (!MEASURED) {
+            return task.getAsInt();
+        }
+        TaskCpuTime running = RUNNING.get();
+        Search outer = running.search;
+        long start = THREADS.getCurrentThreadCpuTime();
+        if (outer != null) {
+            outer.addCpuTime(start - running.since);
+        }
+        running.search = search;
+        running.since = start;
+        try {
+            return task.getAsInt();
+        } finally {
+            long end = THREADS.getCurrentThreadCpuTime();
+            search.addCpuTime(end - running.since);
+            running.search = outer;
+            running.since = end;
+        }
+    }
+}
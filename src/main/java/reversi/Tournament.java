@@ -0,0 +1,273 @@
+package reversi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays the AI setups against each other without a console, many games at a time, and reports how each setup
+ * does against every other one. Every opening is played twice with the colors swapped.
+ * <p>
+ * Usage: Tournament [--games N] [--concurrency N] [--depth N] [--endgame N] [--players 1,2,3,4]
+ * [--openings random|book] [--opening-moves N] [--seed N] [--record FILE]
+ * <p>
+ * With --record every game is appended to a game archive, see GameRecord.
+ */
+public final class Tournament {
+
+    // z of a two-sided 95% confidence interval
+    private static final double Z = 1.96;
+
+    private final int games;
+    private final int concurrency;
+    private final SearchLimits limits;
+    private final int[] players;
+    private final boolean bookOpenings;
+    private final int openingMoves;
+    private final long seed;
+    private final GameRecordWriter recordWriter;
+
+    // results by pair of setups, the lower setup first
+    private final Map<String, PairResult> results = new TreeMap<>();
+    private int finished;
+    private long startTime;
+
+    public Tournament(int games, int concurrency, SearchLimits limits, int[] players, boolean bookOpenings, int openingMoves, long seed,
+                      GameRecordWriter recordWriter) {
+        if (players.length < 2) {
+            throw new IllegalArgumentException("A tournament needs at least two players");
+        }
+        this.games = games;
+        this.concurrency = concurrency;
+        this.limits = limits;
+        this.players = players;
+        this.bookOpenings = bookOpenings;
+        this.openingMoves = openingMoves;
+        this.seed = seed;
+        this.recordWriter = recordWriter;
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        int games = 100;
+        int concurrency = 64;
+        int depth = 4;
+        int endgame = 12;
+        int[] players = {1, 2, 3, 4};
+        boolean bookOpenings = false;
+        int openingMoves = 4;
+        long seed = System.nanoTime();
+        Path record = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--games":
+                    games = Integer.parseInt(value);
+                    break;
+                case "--concurrency":
+                    concurrency = Integer.parseInt(value);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(value);
+                    break;
+                case "--endgame":
+                    endgame = Integer.parseInt(value);
+                    break;
+                case "--players":
+                    players = value.chars().filter(Character::isDigit).map(c -> c - '0').toArray();
+                    break;
+                case "--openings":
+                    bookOpenings = value.equals("book");
+                    break;
+                case "--opening-moves":
+                    openingMoves = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--record":
+                    record = Path.of(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (bookOpenings && Reversi.getOpeningBook().size() == 0) {
+            System.out.println("The opening book is empty, every move is searched");
+        }
+        SearchLimits limits = new SearchLimits(depth, SearchLimits.UNLIMITED, SearchLimits.UNLIMITED, endgame);
+        try (GameRecordWriter recordWriter = record != null ? new GameRecordWriter(record) : null) {
+            new Tournament(games, concurrency, limits, players, bookOpenings, openingMoves, seed, recordWriter).run();
+        }
+    }
+
+    public void run() throws InterruptedException {
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < players.length; i++) {
+            for (int j = i + 1; j < players.length; j++) {
+                pairs.add(new int[]{players[i], players[j]});
+            }
+        }
+
+        startTime = System.nanoTime();
+        Semaphore running = new Semaphore(concurrency);
+        // one virtual thread per game where there are virtual threads, the searches share the bounded pool of the search
+        ExecutorService executor = VirtualThreads.newExecutor(concurrency);
+        for (int game = 0; game < games; game++) {
+            // both games of an opening go to the same pair, the second one with the colors swapped
+            int opening = game / 2;
+            int[] pair = pairs.get(opening % pairs.size());
+            int black = game % 2 == 0 ? pair[0] : pair[1];
+            int white = game % 2 == 0 ? pair[1] : pair[0];
+            int number = game + 1;
+            running.acquire();
+            executor.execute(() -> {
+                try {
+                    finish(number, black, white, play(black, white, seed + opening, new Random(seed * 31 + number)));
+                } catch (RuntimeException e) {
+                    System.out.println("Game " + number + " failed: " + e);
+                } finally {
+                    running.release();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        printSummary();
+    }
+
+    /**
+     * Plays one game and returns its record.
+     */
+    private GameRecord play(int blackSetup, int whiteSetup, long openingSeed, Random random) {
+        long[] board = {Bitboard.fromBoard(startBoard(), Reversi.WHITE), Bitboard.fromBoard(startBoard(), Reversi.BLACK)};
+        GameRecord record = new GameRecord(blackSetup, whiteSetup, limits.getMaxDepth(), limits.getMaxDepth());
+        Random openingRandom = new Random(openingSeed);
+        OpeningBook book = Reversi.getOpeningBook();
+        int player = Reversi.BLACK;
+        for (int ply = 0; ; ply++) {
+            long moves = Reversi.getValidMoves(board, player);
+            if (moves == 0) {
+                if (Reversi.getValidMoves(board, Reversi.opponent(player)) == 0) {
+                    record.finish(board);
+                    return record;
+                }
+                record.addMove(player, GameRecord.PASS, 0);
+                player = Reversi.opponent(player);
+                continue;
+            }
+
+            int square = -1;
+            long start = System.nanoTime();
+            if (!bookOpenings && ply < openingMoves) {
+                for (int skip = openingRandom.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                    moves &= moves - 1;
+                }
+                square = Long.numberOfTrailingZeros(moves);
+            } else {
+                long white = board[Reversi.WHITE - 1];
+                long black = board[Reversi.BLACK - 1];
+                int setup = player == Reversi.WHITE ? whiteSetup : blackSetup;
+                SearchResult bookMove = bookOpenings ? book.find(white, black, player == Reversi.WHITE, setup, openingRandom) : null;
+                if (bookMove != null) {
+                    square = bookMove.getMove() - 1;
+                } else {
+                    square = Reversi.search(white, black, player, limits, setup, random).getMove() - 1;
+                }
+            }
+            record.addMove(player, square, (System.nanoTime() - start) / 1_000_000);
+            if (!bookOpenings && ply + 1 == openingMoves) {
+                record.endOpening();
+            }
+            Reversi.makeMove(board, player, square);
+            player = Reversi.opponent(player);
+        }
+    }
+
+    private static int[][] startBoard() {
+        int[][] board = new int[8][8];
+        Reversi.initializeBoard(board);
+        return board;
+    }
+
+    private synchronized void finish(int number, int black, int white, GameRecord record) {
+        int blackPieces = record.getBlackPieces();
+        int whitePieces = record.getWhitePieces();
+        if (recordWriter != null) {
+            try {
+                recordWriter.write(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        int lower = Math.min(black, white);
+        int lowerPieces = lower == black ? blackPieces : whitePieces;
+        int higherPieces = lower == black ? whitePieces : blackPieces;
+        results.computeIfAbsent(lower + " vs " + Math.max(black, white), k -> new PairResult()).add(Integer.compare(lowerPieces, higherPieces));
+
+        finished++;
+        String outcome = blackPieces > whitePieces ? "black wins" : whitePieces > blackPieces ? "white wins" : "draw";
+        System.out.printf("Game %d: black %d (%d) - white %d (%d), %s; %.2f games per second%n",
+                number, black, blackPieces, white, whitePieces, outcome, gamesPerSecond());
+    }
+
+    private synchronized void printSummary() {
+        for (Map.Entry<String, PairResult> entry : results.entrySet()) {
+            PairResult result = entry.getValue();
+            double[] interval = result.confidenceInterval();
+            System.out.printf("%s: %d wins, %d draws, %d losses; score %.1f%% (95%% confidence %.1f%% - %.1f%%)%n",
+                    entry.getKey(), result.wins, result.draws, result.losses, result.score() * 100, interval[0] * 100, interval[1] * 100);
+        }
+        System.out.printf("Played %d games in %.1f s; %.2f games per second%n", finished, (System.nanoTime() - startTime) / 1e9, gamesPerSecond());
+    }
+
+    private double gamesPerSecond() {
+        return finished / Math.max(1e-9, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    /**
+     * Results of the lower setup of a pair against the higher one.
+     */
+    private static class PairResult {
+
+        private int wins;
+        private int draws;
+        private int losses;
+
+        void add(int outcome) {
+            if (outcome > 0) {
+                wins++;
+            } else if (outcome == 0) {
+                draws++;
+            } else {
+                losses++;
+            }
+        }
+
+        int games() {
+            return wins + draws + losses;
+        }
+
+        // a draw counts as half a win
+        double score() {
+            return (wins + draws / 2.0) / games();
+        }
+
+        // Wilson score interval, which stays within 0 and 1 for few games and lopsided scores
+        double[] confidenceInterval() {
+            int n = games();
+            double p = score();
+            double denominator = 1 + Z * Z / n;
+            double center = (p + Z * Z / (2 * n)) / denominator;
+            double margin = Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4.0 * n * n)) / denominator;
+            return new double[]{Math.max(0, center - margin), Math.min(1, center + margin)};
+        }
+    }
+}
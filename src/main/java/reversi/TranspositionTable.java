@@ -0,0 +1,130 @@
+package reversi;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class TranspositionTable {
+
+    public static final int EXACT = 1;
+    public static final int LOWER = 2;
+    public static final int UPPER = 3;
+
+    // entry layout: score in bits 0-31, depth in 32-39, bound in 40-41, best square + 1 in 42-48, generation in 49-56
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int GENERATION_SHIFT = 49;
+
+    // every key owns a bucket of two slots: the first keeps the deepest entry, the second is always replaced
+    private final AtomicLongArray keys;
+    private final AtomicLongArray entries;
+    private final int bucketMask;
+    private volatile int generation;
+
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    public TranspositionTable(int size) {
+        if (Integer.bitCount(size) != 1 || size < 2) {
+            throw new IllegalArgumentException("Size must be a power of two: " + size);
+        }
+        keys = new AtomicLongArray(size);
+        entries = new AtomicLongArray(size);
+        bucketMask = size / 2 - 1;
+    }
+
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Removes every entry; must not run together with a search.
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length(); i++) {
+            keys.set(i, 0);
+            entries.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the entry stored for the key or 0 when there is none.
+     * Keys are stored xor-ed with their entries, so an entry torn by a concurrent store never matches.
+     */
+    public long probe(long key) {
+        probes.increment();
+        int slot = bucket(key);
+        boolean occupied = false;
+        for (int i = slot; i < slot + 2; i++) {
+            long entry = entries.getOpaque(i);
+            if ((keys.getOpaque(i) ^ entry) == key) {
+                hits.increment();
+                return entry;
+            }
+            occupied |= entry != 0;
+        }
+        if (occupied) {
+            collisions.increment();
+        }
+        return 0;
+    }
+
+    public void store(long key, int depth, int bound, int score, int move) {
+        long entry = (score & 0xFFFFFFFFL)
+                | (long) Math.min(depth, 0xFF) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) (move + 1) << MOVE_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+        int slot = bucket(key);
+        long stored = entries.getOpaque(slot);
+        boolean samePosition = (keys.getOpaque(slot) ^ stored) == key;
+        if (stored == 0 || samePosition || generation(stored) != generation || depth >= depth(stored)) {
+            write(slot, key, entry);
+        } else {
+            write(slot + 1, key, entry);
+        }
+    }
+
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 0x3;
+    }
+
+    /**
+     * Returns the best square of the entry or -1 when the position had no moves.
+     */
+    public static int move(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & 0x7F) - 1;
+    }
+
+    public double hitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0 : (double) hits.sum() / probeCount;
+    }
+
+    public double collisionRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0 : (double) collisions.sum() / probeCount;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    private int bucket(long key) {
+        return (int) (key & bucketMask) * 2;
+    }
+
+    private void write(int slot, long key, long entry) {
+        entries.setOpaque(slot, entry);
+        keys.setOpaque(slot, key ^ entry);
+    }
+}
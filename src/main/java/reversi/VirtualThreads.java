@@ -0,0 +1,22 @@
+package reversi;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Returns an executor running every task on a virtual thread of its own where the JVM has them (Java 21 and
+     * later), otherwise on the given number of platform threads. The build targets Java 17, so it is looked up.
+     */
+    static ExecutorService newExecutor(int platformThreads) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(platformThreads);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package reversi;
+
+import java.util.SplittableRandom;
+
+public final class Zobrist {
+
+    // keys are taken per byte (one row of the board) instead of per cell, so hashing a position is 16 table lookups
+    private static final long[][] WHITE_KEYS = new long[8][256];
+    private static final long[][] BLACK_KEYS = new long[8][256];
+    private static final long WHITE_TO_MOVE_KEY;
+
+    static {
+        // fixed seed, so hashes stay the same between runs and can be stored on disk
+        SplittableRandom random = new SplittableRandom(0x2545F4914F6CDD1DL);
+        long[] cellKeys = new long[128];
+        for (int i = 0; i < cellKeys.length; i++) {
+            cellKeys[i] = random.nextLong();
+        }
+        for (int row = 0; row < 8; row++) {
+            for (int pattern = 0; pattern < 256; pattern++) {
+                for (int col = 0; col < 8; col++) {
+                    if ((pattern & 1 << col) != 0) {
+                        WHITE_KEYS[row][pattern] ^= cellKeys[row * 8 + col];
+                        BLACK_KEYS[row][pattern] ^= cellKeys[64 + row * 8 + col];
+                    }
+                }
+            }
+        }
+        WHITE_TO_MOVE_KEY = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    public static long hash(long white, long black, boolean whiteToMove) {
+        long hash = whiteToMove ? WHITE_TO_MOVE_KEY : 0;
+        for (int row = 0; row < 8; row++) {
+            hash ^= WHITE_KEYS[row][(int) (white >>> row * 8) & 0xFF];
+            hash ^= BLACK_KEYS[row][(int) (black >>> row * 8) & 0xFF];
+        }
+        return hash;
+    }
+}
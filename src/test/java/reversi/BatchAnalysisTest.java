@@ -0,0 +1,151 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BatchAnalysisTest {
+
+    @Test
+    void textLinesAreParsed() throws IOException {
+        long[] position = EndgameSolverTest.randomPosition(new Random(31), 30);
+        String input = "# positions\n"
+                + "\n"
+                + line(position[0], position[1]) + " O\n"
+                + "  " + line(position[1], position[0]) + " X  \n";
+        BatchAnalysis.Source source = BatchAnalysis.textSource(stream(input));
+
+        assertArrayEquals(new long[]{position[0], position[1], Reversi.WHITE}, source.next());
+        assertArrayEquals(new long[]{position[1], position[0], Reversi.BLACK}, source.next());
+        assertNull(source.next());
+    }
+
+    @Test
+    void badLinesAreRejectedOneByOne() throws IOException {
+        String board = line(0x0000001008000000L, 0x0000000810000000L);
+        String input = board + "\n"
+                + board + " Z\n"
+                + board.substring(1) + " O\n"
+                + board.replace('-', '?') + " O\n"
+                + board + " X\n";
+        BatchAnalysis.Source source = BatchAnalysis.textSource(stream(input));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(IllegalArgumentException.class, source::next, "line " + (i + 1));
+        }
+        assertArrayEquals(new long[]{0x0000001008000000L, 0x0000000810000000L, Reversi.BLACK}, source.next());
+        assertNull(source.next());
+    }
+
+    @Test
+    void binaryRecordsAreParsed() throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(17 * 3);
+        input.putLong(0x0000001008000000L).putLong(0x0000000810000000L).put((byte) Reversi.BLACK);
+        input.putLong(1L).putLong(1L).put((byte) Reversi.WHITE);
+        input.putLong(2L).putLong(4L).put((byte) 3);
+        BatchAnalysis.Source source = BatchAnalysis.binarySource(new ByteArrayInputStream(input.array()));
+
+        assertArrayEquals(new long[]{0x0000001008000000L, 0x0000000810000000L, Reversi.BLACK}, source.next());
+        // overlapping pieces and an unknown side are bad records, not the end of the input
+        assertThrows(IllegalArgumentException.class, source::next);
+        assertThrows(IllegalArgumentException.class, source::next);
+        assertNull(source.next());
+    }
+
+    @Test
+    void truncatedLastRecordIsReported() throws IOException {
+        ByteBuffer input = ByteBuffer.allocate(17 + 12);
+        input.putLong(0x0000001008000000L).putLong(0x0000000810000000L).put((byte) Reversi.BLACK);
+        input.putLong(0x0000001008000000L).putInt(8);
+        BatchAnalysis.Source source = BatchAnalysis.binarySource(new ByteArrayInputStream(input.array()));
+
+        assertArrayEquals(new long[]{0x0000001008000000L, 0x0000000810000000L, Reversi.BLACK}, source.next());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, source::next);
+        assertTrue(e.getMessage().contains("12 bytes"), e.getMessage());
+        assertNull(source.next());
+    }
+
+    @Test
+    void resultsAreWrittenInInputOrder() throws IOException, InterruptedException {
+        Random random = new Random(32);
+        StringBuilder input = new StringBuilder();
+        List<long[]> positions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            if (i % 13 == 5) {
+                input.append("bad line\n");
+                positions.add(null);
+            } else {
+                // deeper positions take longer, so later ones finish first
+                long[] position = EndgameSolverTest.randomPosition(random, 4 + random.nextInt(30));
+                input.append(line(position[0], position[1])).append(" O\n");
+                positions.add(position);
+            }
+        }
+        BatchAnalysis analysis = new BatchAnalysis(SearchLimits.depth(3), 3, 4);
+        StringWriter out = new StringWriter();
+        analysis.run(BatchAnalysis.textSource(stream(input.toString())), out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(positions.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            String[] fields = lines[i].split(" ");
+            assertEquals(String.valueOf(i + 1), fields[0], lines[i]);
+            if (positions.get(i) == null) {
+                assertEquals("error", fields[1], lines[i]);
+                continue;
+            }
+            int move = Integer.parseInt(fields[1]);
+            long moves = Bitboard.validMoves(positions.get(i)[0], positions.get(i)[1]);
+            assertTrue(move == -1 ? moves == 0 : (moves & 1L << move - 1) != 0, lines[i]);
+        }
+    }
+
+    @Test
+    void resultsBeforeATruncatedRecordAreWritten() throws IOException, InterruptedException {
+        Random random = new Random(33);
+        ByteBuffer input = ByteBuffer.allocate(17 * 10 + 5);
+        for (int i = 0; i < 10; i++) {
+            long[] position = EndgameSolverTest.randomPosition(random, 10 + random.nextInt(20));
+            input.putLong(position[0]).putLong(position[1]).put((byte) Reversi.WHITE);
+        }
+        input.put(new byte[5]);
+        BatchAnalysis analysis = new BatchAnalysis(SearchLimits.depth(2), 3, 2);
+        StringWriter out = new StringWriter();
+        analysis.run(BatchAnalysis.binarySource(new ByteArrayInputStream(input.array())), out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(11, lines.length, Arrays.toString(lines));
+        assertTrue(lines[10].startsWith("11 error"), lines[10]);
+    }
+
+    @Test
+    void unknownOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BatchAnalysis.main(new String[]{"--job", "4"}));
+    }
+
+    private static String line(long white, long black) {
+        StringBuilder cells = new StringBuilder();
+        for (int i = 0; i < 64; i++) {
+            cells.append((white >>> i & 1) != 0 ? 'O' : (black >>> i & 1) != 0 ? 'X' : '-');
+        }
+        return cells.toString();
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
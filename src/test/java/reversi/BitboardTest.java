@@ -0,0 +1,40 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Counts the leaves of the game tree from the start position, which are known, the same way PerftBenchmark does.
+ */
+class BitboardTest {
+
+    private static final long START_BLACK = 0x0000000810000000L;
+    private static final long START_WHITE = 0x0000001008000000L;
+
+    @Test
+    void perftFromTheStart() {
+        long[] expected = {1, 4, 12, 56, 244, 1396, 8200, 55092, 390216};
+        for (int depth = 0; depth < expected.length; depth++) {
+            assertEquals(expected[depth], perft(START_BLACK, START_WHITE, depth, false), "depth " + depth);
+        }
+    }
+
+    // a pass counts as a move, a game that ended before the depth as one leaf
+    private static long perft(long player, long opponent, int depth, boolean passed) {
+        if (depth == 0) {
+            return 1;
+        }
+        long moves = Bitboard.validMoves(player, opponent);
+        if (moves == 0) {
+            return passed ? 1 : perft(opponent, player, depth - 1, true);
+        }
+        long leaves = 0;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(player, opponent, square);
+            leaves += perft(opponent & ~flipped, player | flipped | 1L << square, depth - 1, false);
+        }
+        return leaves;
+    }
+}
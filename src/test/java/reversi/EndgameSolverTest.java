@@ -0,0 +1,116 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the solver with a plain negamax over every move on positions near the end of random games.
+ */
+class EndgameSolverTest {
+
+    private static final int POSITIONS = 400;
+
+    @Test
+    void solvesLikeBruteForce() {
+        Random random = new Random(7);
+        for (int i = 0; i < POSITIONS; i++) {
+            long[] position = randomPosition(random, 4 + random.nextInt(7));
+            long player = position[0];
+            long opponent = position[1];
+            int expected = bruteForce(player, opponent, false);
+
+            assertEquals(expected, solve(player, opponent, -64, 64), "full window, position " + i);
+
+            // fail-soft: outside the window the result is a bound on the true score
+            int alpha = random.nextInt(129) - 64;
+            int beta = Math.min(64, alpha + 1 + random.nextInt(16));
+            int score = solve(player, opponent, alpha, beta);
+            if (score <= alpha) {
+                assertTrue(expected <= score, "upper bound " + score + " below " + expected + ", position " + i);
+            } else if (score >= beta) {
+                assertTrue(expected >= score, "lower bound " + score + " above " + expected + ", position " + i);
+            } else {
+                assertEquals(expected, score, "window " + alpha + ", " + beta + ", position " + i);
+            }
+        }
+    }
+
+    @Test
+    void searchSolvesPositionsWithinTheEndgameLimit() {
+        Random random = new Random(8);
+        SearchLimits limits = new SearchLimits(8, SearchLimits.UNLIMITED, SearchLimits.UNLIMITED, 10);
+        for (int i = 0; i < 50; i++) {
+            long[] position = randomPosition(random, 4 + random.nextInt(7));
+            if (Bitboard.validMoves(position[0], position[1]) == 0) {
+                continue;
+            }
+            // the search counts thousandths of a piece
+            int expected = solve(position[0], position[1], -64, 64) * 1000;
+            SearchResult result = Reversi.search(position[0], position[1], Reversi.WHITE, limits, Reversi.evaluator(3, position[0]), random);
+            assertEquals(expected, result.getScore(), "position " + i);
+        }
+    }
+
+    private static int solve(long player, long opponent, int alpha, int beta) {
+        // a fresh table each time, so no result comes from another window
+        Search search = new Search((p, o) -> 0, Reversi.WHITE, new TranspositionTable(1 << 12), SearchLimits.depth(1), null);
+        SearchState state = SearchState.acquire(new long[]{player, opponent}, 1);
+        try {
+            return EndgameSolver.solve(player, opponent, alpha, beta, state, search);
+        } finally {
+            state.release();
+        }
+    }
+
+    private static int bruteForce(long player, long opponent, boolean passed) {
+        long moves = Bitboard.validMoves(player, opponent);
+        if (moves == 0) {
+            if (passed) {
+                return Long.bitCount(player) - Long.bitCount(opponent);
+            }
+            return -bruteForce(opponent, player, true);
+        }
+        int best = Integer.MIN_VALUE;
+        for (; moves != 0; moves &= moves - 1) {
+            int square = Long.numberOfTrailingZeros(moves);
+            long flipped = Bitboard.flips(player, opponent, square);
+            best = Math.max(best, -bruteForce(opponent & ~flipped, player | flipped | 1L << square, false));
+        }
+        return best;
+    }
+
+    /**
+     * Plays random moves from the start until the given number of empty squares is left,
+     * and returns the pieces of the side to move and of its opponent.
+     */
+    static long[] randomPosition(Random random, int empties) {
+        while (true) {
+            long player = 0x0000000810000000L;
+            long opponent = 0x0000001008000000L;
+            while (64 - Long.bitCount(player | opponent) > empties) {
+                long moves = Bitboard.validMoves(player, opponent);
+                if (moves == 0 && Bitboard.validMoves(opponent, player) == 0) {
+                    break;
+                }
+                if (moves != 0) {
+                    for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                        moves &= moves - 1;
+                    }
+                    int square = Long.numberOfTrailingZeros(moves);
+                    long flipped = Bitboard.flips(player, opponent, square);
+                    player |= flipped | 1L << square;
+                    opponent &= ~flipped;
+                }
+                long swap = player;
+                player = opponent;
+                opponent = swap;
+            }
+            if (64 - Long.bitCount(player | opponent) == empties) {
+                return new long[]{player, opponent};
+            }
+        }
+    }
+}
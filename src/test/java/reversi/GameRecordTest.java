@@ -0,0 +1,158 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameRecordTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writtenGamesAreReadBack() throws IOException {
+        Path file = directory.resolve("games.record");
+        Random random = new Random(51);
+        List<GameRecord> games = new ArrayList<>();
+        List<long[]> results = new ArrayList<>();
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            write(writer, random, 20, games, results);
+            assertEquals(20, writer.getGames());
+        }
+        // a second writer appends to the games already there
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            write(writer, random, 20, games, results);
+        }
+        assertTrue(games.stream().anyMatch(GameRecordTest::hasPass), "no game with a pass");
+
+        long[] board = new long[2];
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (int i = 0; i < games.size(); i++) {
+                assertTrue(reader.next(), "game " + i);
+                GameRecord game = games.get(i);
+                assertEquals(game.getMoveCount(), reader.getMoveCount());
+                for (int move = 0; move < game.getMoveCount(); move++) {
+                    assertEquals(game.getMove(move), reader.getMove(move), "move " + move + " of game " + i);
+                }
+                assertEquals(game.getBlackSetup(), reader.getBlackSetup());
+                assertEquals(game.getWhiteSetup(), reader.getWhiteSetup());
+                assertEquals(game.getBlackDepth(), reader.getBlackDepth());
+                assertEquals(game.getWhiteDepth(), reader.getWhiteDepth());
+                assertEquals(game.getOpeningMoves(), reader.getOpeningMoves());
+                assertEquals(game.getBlackPieces(), reader.getBlackPieces());
+                assertEquals(game.getWhitePieces(), reader.getWhitePieces());
+                assertEquals(game.getBlackMillis(), reader.getBlackMillis());
+                assertEquals(game.getWhiteMillis(), reader.getWhiteMillis());
+
+                reader.replay(board, null);
+                assertArrayEquals(results.get(i), board, "final position of game " + i);
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void truncatedGameIsReportedAndDropped() throws IOException {
+        Path file = directory.resolve("games.record");
+        Random random = new Random(52);
+        List<GameRecord> games = new ArrayList<>();
+        List<long[]> results = new ArrayList<>();
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            write(writer, random, 5, games, results);
+        }
+        long complete = Files.size(file);
+        GameRecord last = games.get(games.size() - 1);
+        // a crash while the last game was written leaves its header and some of its moves behind
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(complete - last.getMoveCount() / 2);
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (int i = 0; i < games.size() - 1; i++) {
+                assertTrue(reader.next());
+            }
+            assertThrows(EOFException.class, reader::next);
+        }
+
+        try (GameRecordWriter writer = new GameRecordWriter(file)) {
+            assertEquals(complete - GameRecord.HEADER_SIZE - last.getMoveCount(), Files.size(file));
+            games.remove(games.size() - 1);
+            results.remove(results.size() - 1);
+            write(writer, random, 2, games, results);
+        }
+        long[] board = new long[2];
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            for (int i = 0; i < games.size(); i++) {
+                assertTrue(reader.next());
+                assertEquals(games.get(i).getMoveCount(), reader.getMoveCount());
+                reader.replay(board, null);
+                assertArrayEquals(results.get(i), board);
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void otherFilesAreRefused() throws IOException {
+        Path file = directory.resolve("other.record");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        assertThrows(IOException.class, () -> new GameRecordReader(file).close());
+    }
+
+    // random games to the end, the first moves of some of them marked as the opening
+    private static void write(GameRecordWriter writer, Random random, int count, List<GameRecord> games, List<long[]> results)
+            throws IOException {
+        for (int i = 0; i < count; i++) {
+            GameRecord game = new GameRecord(1 + random.nextInt(6), random.nextInt(7), 1 + random.nextInt(10), 1 + random.nextInt(10));
+            int[][] start = new int[8][8];
+            Reversi.initializeBoard(start);
+            long[] board = {Bitboard.fromBoard(start, Reversi.WHITE), Bitboard.fromBoard(start, Reversi.BLACK)};
+            int openingMoves = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(8);
+            int player = Reversi.BLACK;
+            while (Reversi.getValidMoves(board, Reversi.WHITE) != 0 || Reversi.getValidMoves(board, Reversi.BLACK) != 0) {
+                long moves = Reversi.getValidMoves(board, player);
+                if (moves == 0) {
+                    game.addMove(player, GameRecord.PASS, 0);
+                } else {
+                    for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+                        moves &= moves - 1;
+                    }
+                    int square = Long.numberOfTrailingZeros(moves);
+                    Reversi.makeMove(board, player, square);
+                    game.addMove(player, square, random.nextInt(5000));
+                }
+                if (game.getMoveCount() == openingMoves) {
+                    game.endOpening();
+                }
+                player = Reversi.opponent(player);
+            }
+            game.finish(board);
+            writer.write(game);
+            games.add(game);
+            results.add(board);
+        }
+    }
+
+    private static boolean hasPass(GameRecord game) {
+        for (int i = 0; i < game.getMoveCount(); i++) {
+            if (game.getMove(i) == GameRecord.PASS) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
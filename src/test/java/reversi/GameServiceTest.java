@@ -0,0 +1,100 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class GameServiceTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private GameService service;
+
+    @AfterEach
+    void stop() {
+        if (service != null) {
+            service.stop();
+        }
+    }
+
+    @Test
+    void gamesArePlayedThroughTheEndpoint() throws Exception {
+        start(10, 60, 100);
+        HttpResponse<String> created = send("POST", "/games?white=1&black=0&depth=2");
+        assertEquals(201, created.statusCode());
+        assertTrue(created.body().contains("turn=X\n"), created.body());
+        String id = value(created.body(), "id");
+
+        // black plays 20, the AI answers at once
+        HttpResponse<String> moved = send("POST", "/games/" + id + "/moves?move=20");
+        assertEquals(200, moved.statusCode());
+        assertEquals(2, value(moved.body(), "moves").split(" ").length, moved.body());
+        assertTrue(value(moved.body(), "moves").startsWith("20 "), moved.body());
+        assertEquals("X", value(moved.body(), "turn"));
+
+        assertEquals(400, send("POST", "/games/" + id + "/moves?move=1").statusCode());
+        assertEquals(200, send("GET", "/games/" + id).statusCode());
+        assertEquals(404, send("GET", "/games/999").statusCode());
+        assertEquals(404, send("GET", "/games/" + id + "/other").statusCode());
+        assertEquals(200, send("DELETE", "/games/" + id).statusCode());
+        assertEquals(404, send("GET", "/games/" + id).statusCode());
+    }
+
+    @Test
+    void aiGamesArePlayedToTheEnd() throws Exception {
+        start(10, 60, 100);
+        String id = value(send("POST", "/games?white=1&black=1&depth=1").body(), "id");
+        HttpResponse<String> played = send("POST", "/games/" + id + "/moves");
+        assertEquals(200, played.statusCode());
+        assertEquals("none", value(played.body(), "turn"));
+        assertEquals(409, send("POST", "/games/" + id + "/moves?move=20").statusCode());
+    }
+
+    @Test
+    void badLimitsAndTooManyGamesAreRefused() throws Exception {
+        start(1, 60, 100);
+        assertEquals(400, send("POST", "/games?white=1&time=-5").statusCode());
+        assertEquals(400, send("POST", "/games?white=7").statusCode());
+        assertEquals(201, send("POST", "/games?white=1").statusCode());
+        assertEquals(503, send("POST", "/games?white=1").statusCode());
+    }
+
+    @Test
+    void limitsAreCappedAtTheMaximums() throws Exception {
+        start(10, 60, 100);
+        // without the caps this search would run for hours
+        String id = value(send("POST", "/games?white=0&black=1&depth=60&time=10000000000000&endgame=0").body(), "id");
+        long start = System.nanoTime();
+        HttpResponse<String> played = send("POST", "/games/" + id + "/moves");
+        assertEquals(200, played.statusCode());
+        assertEquals("O", value(played.body(), "turn"));
+        assertTrue(System.nanoTime() - start < 10_000_000_000L, "the search took " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private void start(int maxGames, int maxDepth, long maxMillis) throws IOException {
+        service = new GameService(0, maxGames, maxDepth, maxMillis, new SearchScheduler(1, 16));
+        service.start();
+    }
+
+    private HttpResponse<String> send(String method, String path) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + service.getPort() + path))
+                .method(method, HttpRequest.BodyPublishers.noBody())
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String value(String body, String key) {
+        for (String line : body.split("\n")) {
+            if (line.startsWith(key + "=")) {
+                return line.substring(key.length() + 1);
+            }
+        }
+        throw new AssertionError("No " + key + " in " + body);
+    }
+}
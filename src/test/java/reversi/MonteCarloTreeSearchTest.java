@@ -0,0 +1,151 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MonteCarloTreeSearchTest {
+
+    private static final SearchLimits LIMITS = new SearchLimits(1, SearchLimits.UNLIMITED, 500);
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @AfterEach
+    void shutDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void movesOfRandomPositionsAreLegal() {
+        Random random = new Random(61);
+        MonteCarloTreeSearch tree = new MonteCarloTreeSearch(pool, 1 << 14);
+        for (int i = 0; i < 50; i++) {
+            long[] position = EndgameSolverTest.randomPosition(random, 1 + random.nextInt(55));
+            int player = random.nextBoolean() ? Reversi.WHITE : Reversi.BLACK;
+            long white = player == Reversi.WHITE ? position[0] : position[1];
+            long black = player == Reversi.WHITE ? position[1] : position[0];
+            SearchResult result = tree.search(white, black, player, LIMITS, random, new AtomicBoolean());
+            assertSearched(white, black, player, result);
+        }
+    }
+
+    @Test
+    void forcedMoveAndPassAreAnswered() {
+        Random random = new Random(62);
+        MonteCarloTreeSearch tree = new MonteCarloTreeSearch(pool, 1 << 14);
+        int forced = 0;
+        int passes = 0;
+        while (forced < 10 || passes < 10) {
+            long[] position = EndgameSolverTest.randomPosition(random, 1 + random.nextInt(20));
+            long moves = Bitboard.validMoves(position[0], position[1]);
+            if (Long.bitCount(moves) == 1 && forced < 10) {
+                forced++;
+                SearchResult result = tree.search(position[0], position[1], Reversi.WHITE, LIMITS, random, new AtomicBoolean());
+                assertEquals(Long.numberOfTrailingZeros(moves) + 1, result.getMove());
+                assertEquals(1, result.getRootMoves().length);
+            } else if (moves == 0 && passes < 10) {
+                passes++;
+                SearchResult result = tree.search(position[0], position[1], Reversi.WHITE, LIMITS, random, new AtomicBoolean());
+                assertEquals(-1, result.getMove());
+            }
+        }
+    }
+
+    @Test
+    void treeIsKeptForTheNextMoves() {
+        Random random = new Random(63);
+        MonteCarloTreeSearch tree = new MonteCarloTreeSearch(pool, 1 << 16);
+        long[] board = {0x0000001008000000L, 0x0000000810000000L};
+        int player = Reversi.BLACK;
+        int kept = 0;
+        while (Reversi.getValidMoves(board, Reversi.WHITE) != 0 || Reversi.getValidMoves(board, Reversi.BLACK) != 0) {
+            if (Reversi.getValidMoves(board, player) != 0) {
+                // the last root or a position one or two plies below it
+                if (tree.holds(board[0], board[1], player)) {
+                    kept++;
+                }
+                SearchResult result = tree.search(board[0], board[1], player, LIMITS, random, new AtomicBoolean());
+                assertSearched(board[0], board[1], player, result);
+                Reversi.makeMove(board, player, result.getMove() - 1);
+            }
+            player = Reversi.opponent(player);
+        }
+        assertTrue(kept > 20, "tree kept for " + kept + " moves");
+    }
+
+    @Test
+    void fullArenaIsClearedWithoutBreakingTheTree() {
+        Random random = new Random(64);
+        // a few hundred games fill an arena of this size, so most searches start on a cleared one
+        MonteCarloTreeSearch tree = new MonteCarloTreeSearch(pool, 200);
+        for (int game = 0; game < 5; game++) {
+            long[] board = {0x0000001008000000L, 0x0000000810000000L};
+            int player = Reversi.BLACK;
+            boolean cleared = false;
+            while (Reversi.getValidMoves(board, Reversi.WHITE) != 0 || Reversi.getValidMoves(board, Reversi.BLACK) != 0) {
+                if (Reversi.getValidMoves(board, player) != 0) {
+                    cleared |= !tree.holds(board[0], board[1], player);
+                    SearchResult result = tree.search(board[0], board[1], player, LIMITS, random, new AtomicBoolean());
+                    assertSearched(board[0], board[1], player, result);
+                    // an opponent playing at random leaves the tree as often as not
+                    long moves = Reversi.getValidMoves(board, player);
+                    int square = random.nextBoolean() ? result.getMove() - 1 : Long.numberOfTrailingZeros(moves);
+                    Reversi.makeMove(board, player, square);
+                }
+                player = Reversi.opponent(player);
+            }
+            assertTrue(cleared);
+        }
+    }
+
+    @Test
+    void pooledTreesFollowTheirGames() {
+        Random random = new Random(65);
+        MonteCarloTreePool trees = new MonteCarloTreePool(pool, 1 << 14, 2);
+        long[][] boards = new long[3][];
+        int[] players = new int[3];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new long[]{0x0000001008000000L, 0x0000000810000000L};
+            players[i] = Reversi.BLACK;
+        }
+        // three games take turns on two trees, so trees move from game to game
+        for (int turn = 0; turn < 60; turn++) {
+            int i = turn % boards.length;
+            long[] board = boards[i];
+            if (Reversi.getValidMoves(board, Reversi.WHITE) == 0 && Reversi.getValidMoves(board, Reversi.BLACK) == 0) {
+                continue;
+            }
+            if (Reversi.getValidMoves(board, players[i]) != 0) {
+                SearchResult result = trees.search(board[0], board[1], players[i], LIMITS, random, new AtomicBoolean());
+                assertSearched(board[0], board[1], players[i], result);
+                Reversi.makeMove(board, players[i], result.getMove() - 1);
+            }
+            players[i] = Reversi.opponent(players[i]);
+        }
+    }
+
+    // the move is legal and the root moves are exactly the legal moves of the position
+    private static void assertSearched(long white, long black, int player, SearchResult result) {
+        long moves = Reversi.getValidMoves(new long[]{white, black}, player);
+        if (moves == 0) {
+            assertEquals(-1, result.getMove());
+            return;
+        }
+        assertTrue((moves & 1L << result.getMove() - 1) != 0, "illegal move " + result.getMove());
+        long rootMoves = 0;
+        for (int move : result.getRootMoves()) {
+            assertFalse((rootMoves & 1L << move - 1) != 0, "move " + move + " twice");
+            rootMoves |= 1L << move - 1;
+        }
+        assertEquals(moves, rootMoves);
+        for (int score : result.getRootScores()) {
+            assertTrue(score >= 0 && score <= 100, "score " + score);
+        }
+    }
+}
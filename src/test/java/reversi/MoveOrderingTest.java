@@ -0,0 +1,112 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Orders the moves of the start position, black to move on squares 19, 26, 37 and 44, with cell weights chosen
+ * so every rule of the ordering shows in the result.
+ */
+class MoveOrderingTest {
+
+    private static final long BLACK = 0x0000000810000000L;
+    private static final long WHITE = 0x0000001008000000L;
+    private static final long MOVES = Bitboard.validMoves(BLACK, WHITE);
+    private static final int BLACK_INDEX = Reversi.BLACK - 1;
+    private static final int WHITE_INDEX = Reversi.WHITE - 1;
+
+    @Test
+    void movesAreOrderedByCellWeight() {
+        MoveOrdering ordering = new MoveOrdering(weights(19, 4, 26, 3, 37, 2, 44, 1));
+        assertArrayEquals(new int[]{19, 26, 37, 44}, order(ordering, -1, 0));
+
+        ordering = new MoveOrdering(weights(19, 1, 26, 2, 37, 3, 44, 4));
+        assertArrayEquals(new int[]{44, 37, 26, 19}, order(ordering, -1, 0));
+    }
+
+    @Test
+    void hashMoveGoesFirstThenKillers() {
+        MoveOrdering ordering = new MoveOrdering(weights(19, 4, 26, 3, 37, 2, 44, 1));
+        assertArrayEquals(new int[]{37, 19, 26, 44}, order(ordering, 37, 0));
+
+        ordering.cutoff(BLACK_INDEX, 44, 0, 1);
+        ordering.cutoff(BLACK_INDEX, 26, 0, 1);
+        // the latest killer first, both before the better cells
+        assertArrayEquals(new int[]{26, 44, 19, 37}, order(ordering, -1, 0));
+        assertArrayEquals(new int[]{37, 26, 44, 19}, order(ordering, 37, 0));
+        // a killer found again stays first and keeps the other one
+        ordering.cutoff(BLACK_INDEX, 26, 0, 1);
+        assertArrayEquals(new int[]{26, 44, 19, 37}, order(ordering, -1, 0));
+        // a third one pushes out the oldest
+        ordering.cutoff(BLACK_INDEX, 37, 0, 1);
+        assertArrayEquals(new int[]{37, 26, 19, 44}, order(ordering, -1, 0));
+    }
+
+    @Test
+    void killersBelongToTheirPly() {
+        MoveOrdering ordering = new MoveOrdering(weights(19, 40, 26, 30, 37, 20, 44, 10));
+        ordering.cutoff(BLACK_INDEX, 44, 5, 1);
+        assertArrayEquals(new int[]{44, 19, 26, 37}, order(ordering, -1, 5));
+        // the history of a depth 1 cutoff is far below the differences of the cell weights
+        assertArrayEquals(new int[]{19, 26, 37, 44}, order(ordering, -1, 4));
+    }
+
+    @Test
+    void historyRaisesMovesOfTheirPlayer() {
+        MoveOrdering ordering = new MoveOrdering(weights(19, 40, 26, 30, 37, 20, 44, 10));
+        // cutoffs at other plies, so only the history of 44 counts at ply 0
+        for (int ply = 1; ply <= 3; ply++) {
+            ordering.cutoff(BLACK_INDEX, 44, ply, 4);
+        }
+        assertArrayEquals(new int[]{44, 19, 26, 37}, order(ordering, -1, 0));
+        int[] whiteOrder = new int[4];
+        ordering.order(BLACK, WHITE, MOVES, WHITE_INDEX, -1, 0, 1, whiteOrder, new int[64]);
+        assertArrayEquals(new int[]{19, 26, 37, 44}, whiteOrder);
+    }
+
+    @Test
+    void movesLeavingFewRepliesGoFirstInDeepSearches() {
+        Random random = new Random(81);
+        MoveOrdering ordering = new MoveOrdering(weights());
+        for (int i = 0; i < 200; i++) {
+            long[] position = EndgameSolverTest.randomPosition(random, 10 + random.nextInt(40));
+            long moves = Bitboard.validMoves(position[0], position[1]);
+            int[] squares = new int[64];
+            int[] scores = new int[64];
+            int count = ordering.order(position[0], position[1], moves, 0, -1, 0, 3, squares, scores);
+            assertEquals(Long.bitCount(moves), count);
+
+            long ordered = 0;
+            int lastReplies = -1;
+            for (int j = 0; j < count; j++) {
+                ordered |= 1L << squares[j];
+                long flipped = Bitboard.flips(position[0], position[1], squares[j]);
+                int replies = Long.bitCount(Bitboard.validMoves(position[1] & ~flipped, position[0] | flipped | 1L << squares[j]));
+                assertTrue(replies >= lastReplies, "position " + i + ": " + Arrays.toString(Arrays.copyOf(squares, count)));
+                lastReplies = replies;
+            }
+            assertEquals(moves, ordered);
+        }
+    }
+
+    private static int[] order(MoveOrdering ordering, int hashSquare, int ply) {
+        int[] squares = new int[4];
+        int count = ordering.order(BLACK, WHITE, MOVES, BLACK_INDEX, hashSquare, ply, 1, squares, new int[64]);
+        assertEquals(4, count);
+        return squares;
+    }
+
+    // cell weights of 0 but for the given pairs of square and weight
+    private static int[][] weights(int... squareWeights) {
+        int[][] weights = new int[8][8];
+        for (int i = 0; i < squareWeights.length; i += 2) {
+            weights[squareWeights[i] / 8][squareWeights[i] % 8] = squareWeights[i + 1];
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,90 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OpeningBookTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void symmetriesAreUndone() {
+        Random random = new Random(11);
+        for (int i = 0; i < 100; i++) {
+            long bits = random.nextLong();
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                assertEquals(bits, Bitboard.inverseSymmetry(Bitboard.symmetry(bits, symmetry), symmetry), "symmetry " + symmetry);
+            }
+        }
+    }
+
+    @Test
+    void symmetricPositionsShareTheirKey() {
+        Random random = new Random(12);
+        for (int i = 0; i < 100; i++) {
+            long[] position = EndgameSolverTest.randomPosition(random, 20 + random.nextInt(36));
+            long key = OpeningBook.canonicalKey(position[0], position[1], true);
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                long white = Bitboard.symmetry(position[0], symmetry);
+                long black = Bitboard.symmetry(position[1], symmetry);
+                assertEquals(key, OpeningBook.canonicalKey(white, black, true), "symmetry " + symmetry);
+                int canonical = OpeningBook.canonicalSymmetry(white, black, true);
+                assertEquals(key, OpeningBook.canonicalKey(Bitboard.symmetry(white, canonical), Bitboard.symmetry(black, canonical), true));
+            }
+        }
+    }
+
+    @Test
+    void movesAreFoundInEveryOrientation() throws IOException {
+        Random random = new Random(13);
+        List<long[]> positions = new ArrayList<>();
+        List<OpeningBook.Entry> entries = new ArrayList<>();
+        int[] symmetries = new int[8];
+        while (positions.size() < 50) {
+            long[] position = EndgameSolverTest.randomPosition(random, 40 + random.nextInt(16));
+            long white = position[0];
+            long black = position[1];
+            long moves = Bitboard.validMoves(white, black);
+            // a symmetric position has more than one right answer
+            if (moves == 0 || OpeningBook.canonicalSymmetries(white, black, true, symmetries) > 1) {
+                continue;
+            }
+            int square = Long.numberOfTrailingZeros(moves);
+            int canonical = OpeningBook.canonicalSymmetry(white, black, true);
+            long key = OpeningBook.canonicalKey(white, black, true);
+            int canonicalSquare = Long.numberOfTrailingZeros(Bitboard.symmetry(1L << square, canonical));
+            positions.add(new long[]{white, black, square});
+            entries.add(new OpeningBook.Entry(key, canonicalSquare, 1, 10, 3));
+            // another setup's move for the same position is kept apart
+            entries.add(new OpeningBook.Entry(key, canonicalSquare, 2, 10, 5));
+        }
+        Path path = directory.resolve("test.book");
+        OpeningBook.write(path, entries);
+        OpeningBook book = OpeningBook.open(path);
+        assertEquals(entries.size(), book.size());
+
+        for (long[] position : positions) {
+            for (int symmetry = 0; symmetry < 8; symmetry++) {
+                long white = Bitboard.symmetry(position[0], symmetry);
+                long black = Bitboard.symmetry(position[1], symmetry);
+                int square = Long.numberOfTrailingZeros(Bitboard.symmetry(1L << position[2], symmetry));
+                SearchResult result = book.find(white, black, true, 3, random);
+                assertNotNull(result, "symmetry " + symmetry);
+                assertEquals(square + 1, result.getMove(), "symmetry " + symmetry);
+                assertEquals(1, result.getScore());
+                assertEquals(2, book.find(white, black, true, 5, random).getScore());
+                assertNull(book.find(white, black, true, 1, random));
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PositionCacheTest {
+
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_SIZE = 20;
+    private static final long EVALUATOR = 3;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedPositionsAreLoadedAgain() throws IOException {
+        Path file = directory.resolve("positions.cache");
+        List<long[]> positions = positions(new Random(21), 50);
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            assertTrue(cache.isLogging());
+            store(cache, positions);
+        }
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            assertEquals(positions.size(), cache.size());
+            assertFound(cache, positions);
+        }
+    }
+
+    @Test
+    void tornRecordIsCutOff() throws IOException {
+        Path file = directory.resolve("positions.cache");
+        List<long[]> positions = positions(new Random(22), 20);
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            store(cache, positions);
+        }
+        long end = Files.size(file);
+        assertEquals(HEADER_SIZE + positions.size() * RECORD_SIZE, end);
+
+        // a crash in the middle of a record leaves part of it behind
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7}));
+        }
+        List<long[]> more = positions(new Random(23), 5);
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            assertEquals(positions.size(), cache.size());
+            assertEquals(end, Files.size(file));
+            store(cache, more);
+        }
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            assertEquals(positions.size() + more.size(), cache.size());
+            assertFound(cache, positions);
+            assertFound(cache, more);
+        }
+    }
+
+    @Test
+    void recordFailingItsChecksumEndsTheLog() throws IOException {
+        Path file = directory.resolve("positions.cache");
+        List<long[]> positions = positions(new Random(24), 10);
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            store(cache, positions);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), Files.size(file) - RECORD_SIZE + 9);
+        }
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            assertEquals(positions.size() - 1, cache.size());
+            assertFound(cache, positions.subList(0, positions.size() - 1));
+        }
+        assertEquals(HEADER_SIZE + (positions.size() - 1) * RECORD_SIZE, Files.size(file));
+    }
+
+    @Test
+    void fileInUseIsOnlyRead() throws IOException {
+        Path file = directory.resolve("positions.cache");
+        List<long[]> positions = positions(new Random(25), 10);
+        try (PositionCache first = PositionCache.open(file, 1 << 10)) {
+            store(first, positions);
+            long end = Files.size(file);
+            try (PositionCache second = PositionCache.open(file, 1 << 10)) {
+                assertFalse(second.isLogging());
+                assertFound(second, positions);
+                store(second, positions(new Random(26), 10));
+            }
+            assertEquals(end, Files.size(file));
+        }
+        // the lock goes with the cache that held it
+        try (PositionCache cache = PositionCache.open(file, 1 << 10)) {
+            assertTrue(cache.isLogging());
+        }
+    }
+
+    @Test
+    void fullCacheIsRewritten() throws IOException {
+        Path file = directory.resolve("positions.cache");
+        int capacity = 16;
+        List<long[]> positions = positions(new Random(27), 200);
+        try (PositionCache cache = PositionCache.open(file, capacity)) {
+            store(cache, positions);
+        }
+        try (PositionCache cache = PositionCache.open(file, capacity)) {
+            assertTrue(cache.size() <= capacity);
+            // the log holds the entries and at most the records logged after the last rewrite
+            assertTrue(Files.size(file) <= HEADER_SIZE + 2L * capacity * RECORD_SIZE);
+            // the latest entries are kept, earlier ones were dropped to make room
+            long[] last = positions.get(positions.size() - 1);
+            assertNotNull(cache.find(last[0], last[1], true, EVALUATOR, 1, new Random(1)));
+            assertNull(cache.find(last[0], last[1], true, EVALUATOR + 1, 1, new Random(1)));
+        }
+    }
+
+    // positions with white to move and at least one move, the move to store last
+    private static List<long[]> positions(Random random, int count) {
+        List<long[]> positions = new ArrayList<>();
+        while (positions.size() < count) {
+            long[] position = EndgameSolverTest.randomPosition(random, 10 + random.nextInt(40));
+            long moves = Bitboard.validMoves(position[0], position[1]);
+            if (moves != 0) {
+                positions.add(new long[]{position[0], position[1], Long.numberOfTrailingZeros(moves) + 1});
+            }
+        }
+        return positions;
+    }
+
+    private static void store(PositionCache cache, List<long[]> positions) throws IOException {
+        for (long[] position : positions) {
+            cache.store(position[0], position[1], true, EVALUATOR, (int) position[2], 7, 5);
+        }
+    }
+
+    private static void assertFound(PositionCache cache, List<long[]> positions) {
+        Random random = new Random(1);
+        for (long[] position : positions) {
+            SearchResult result = cache.find(position[0], position[1], true, EVALUATOR, 5, random);
+            assertNotNull(result);
+            assertEquals(7, result.getScore());
+            assertNull(cache.find(position[0], position[1], true, EVALUATOR, 6, random));
+        }
+    }
+}
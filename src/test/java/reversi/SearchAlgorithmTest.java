@@ -0,0 +1,53 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the score and the best moves of every search algorithm with plain alpha-beta at fixed depths.
+ */
+class SearchAlgorithmTest {
+
+    private static final int POSITIONS = 30;
+
+    @Test
+    void algorithmsAgreeWithAlphaBeta() {
+        Random random = new Random(17);
+        for (int i = 0; i < POSITIONS; i++) {
+            long[] position = EndgameSolverTest.randomPosition(random, 20 + random.nextInt(25));
+            if (Bitboard.validMoves(position[0], position[1]) == 0) {
+                continue;
+            }
+            int depth = 4 + i % 3;
+            SearchResult expected = search(position, depth, SearchAlgorithm.ALPHA_BETA);
+            for (SearchAlgorithm algorithm : SearchAlgorithm.values()) {
+                SearchResult result = search(position, depth, algorithm);
+                String message = algorithm + " at depth " + depth + ", position " + i;
+                assertEquals(expected.getScore(), result.getScore(), message);
+                assertEquals(bestMoves(expected), bestMoves(result), message);
+            }
+        }
+    }
+
+    private static SearchResult search(long[] position, int depth, SearchAlgorithm algorithm) {
+        // every search starts from an empty table, so none of them gets scores of another one
+        Reversi.clearTranspositionTable();
+        SearchLimits limits = new SearchLimits(depth, SearchLimits.UNLIMITED, SearchLimits.UNLIMITED, 0, algorithm);
+        return Reversi.search(position[0], position[1], Reversi.WHITE, limits, Reversi.evaluator(3, position[0]), new Random(1));
+    }
+
+    // the moves with the best score, which the search chooses from at random
+    private static Set<Integer> bestMoves(SearchResult result) {
+        Set<Integer> moves = new TreeSet<>();
+        for (int i = 0; i < result.getRootMoves().length; i++) {
+            if (result.getRootScores()[i] == result.getScore()) {
+                moves.add(result.getRootMoves()[i]);
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,74 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import org.junit.jupiter.api.Test;
+
+class SearchSchedulerTest {
+
+    private static final long WHITE = 0x0000001008000000L;
+    private static final long BLACK = 0x0000000810000000L;
+
+    @Test
+    void shortBudgetsThenLeastUsedGamesGoFirst() throws Exception {
+        SearchScheduler scheduler = new SearchScheduler(1, 16);
+        try {
+            Object used = "used";
+            Object fresh = "fresh";
+            Object blocker = "blocker";
+            Object quick = "quick";
+            for (Object game : new Object[]{used, fresh, blocker, quick}) {
+                scheduler.register(game);
+            }
+            submit(scheduler, used, new SearchLimits(30, 100, SearchLimits.UNLIMITED, 0)).get();
+
+            // keeps the only search slot busy while the others queue up
+            CompletableFuture<SearchResult> blocking = submit(scheduler, blocker, new SearchLimits(30, 300, SearchLimits.UNLIMITED, 0));
+            List<Object> order = new ArrayList<>();
+            SearchLimits longBudget = new SearchLimits(1, 2000, SearchLimits.UNLIMITED, 0);
+            SearchLimits shortBudget = new SearchLimits(1, 500, SearchLimits.UNLIMITED, 0);
+            List<CompletableFuture<Void>> done = List.of(
+                    submit(scheduler, used, longBudget).thenRun(() -> add(order, used)),
+                    submit(scheduler, fresh, longBudget).thenRun(() -> add(order, fresh)),
+                    submit(scheduler, quick, shortBudget).thenRun(() -> add(order, quick)));
+            blocking.get();
+            for (CompletableFuture<Void> future : done) {
+                future.get();
+            }
+            assertEquals(List.of(quick, fresh, used), order);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    void searchesBeyondThePendingLimitAreRejected() {
+        SearchScheduler scheduler = new SearchScheduler(1, 0);
+        try {
+            CompletableFuture<SearchResult> result = submit(scheduler, "game", SearchLimits.depth(1));
+            ExecutionException e = assertThrows(ExecutionException.class, result::get);
+            assertInstanceOf(RejectedExecutionException.class, e.getCause());
+            assertEquals(0, scheduler.getPending());
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    private static CompletableFuture<SearchResult> submit(SearchScheduler scheduler, Object game, SearchLimits limits) {
+        return scheduler.submit(game, WHITE, BLACK, Reversi.BLACK, limits, 3, new Random(1));
+    }
+
+    private static void add(List<Object> order, Object game) {
+        synchronized (order) {
+            order.add(game);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SearchStateTest {
+
+    private static final int DEPTH = 60;
+
+    @Test
+    void weightedSumsFollowMovesAndUndos() {
+        Random random = new Random(41);
+        for (int game = 0; game < 200; game++) {
+            long[] start = {0x0000001008000000L, 0x0000000810000000L};
+            SearchState state = SearchState.acquire(start, DEPTH);
+            try {
+                playAndTakeBack(state, random);
+            } finally {
+                state.release();
+            }
+        }
+    }
+
+    @Test
+    void weightedSumsOfAcquiredStatesAreComputedAgain() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            long[] position = EndgameSolverTest.randomPosition(random, random.nextInt(61));
+            // a state back from the pool must not keep the sums of its last board
+            SearchState state = SearchState.acquire(position, DEPTH);
+            try {
+                assertSums(state);
+            } finally {
+                state.release();
+            }
+        }
+    }
+
+    // plays random moves, taking some of them back now and then, and passing when there is no move
+    private static void playAndTakeBack(SearchState state, Random random) {
+        Deque<int[]> played = new ArrayDeque<>();
+        int player = Reversi.BLACK;
+        int passes = 0;
+        while (passes < 2) {
+            if (!played.isEmpty() && random.nextInt(4) == 0) {
+                for (int undos = 1 + random.nextInt(played.size()); undos > 0; undos--) {
+                    int[] move = played.pop();
+                    state.undoMove(move[0], move[1], move[2], move[3]);
+                    assertSums(state);
+                    player = move[0];
+                }
+                passes = 0;
+                continue;
+            }
+            int opponent = Reversi.opponent(player);
+            long moves = Bitboard.validMoves(state.pieces(player), state.pieces(opponent));
+            if (moves == 0) {
+                passes++;
+                player = opponent;
+                continue;
+            }
+            passes = 0;
+            int square = pick(moves, random);
+            int depth = DEPTH - played.size();
+            state.makeMove(player, opponent, square, depth);
+            assertSums(state);
+            played.push(new int[]{player, opponent, square, depth});
+            player = opponent;
+        }
+        while (!played.isEmpty()) {
+            int[] move = played.pop();
+            state.undoMove(move[0], move[1], move[2], move[3]);
+        }
+        assertEquals(0x0000001008000000L, state.pieces(Reversi.WHITE));
+        assertEquals(0x0000000810000000L, state.pieces(Reversi.BLACK));
+        assertSums(state);
+    }
+
+    private static int pick(long moves, Random random) {
+        for (int skip = random.nextInt(Long.bitCount(moves)); skip > 0; skip--) {
+            moves &= moves - 1;
+        }
+        return Long.numberOfTrailingZeros(moves);
+    }
+
+    private static void assertSums(SearchState state) {
+        for (int player = Reversi.WHITE; player <= Reversi.BLACK; player++) {
+            long pieces = state.pieces(player);
+            assertEquals(Reversi.weightTable().sum(pieces), state.weightedSum(player), "player " + player);
+            assertEquals(Reversi.weightTableNoPenalties().sum(pieces), state.weightedSumNoPenalties(player), "player " + player);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package reversi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Stores entries and probes them again, with keys chosen to share buckets so the replacement scheme decides.
+ */
+class TranspositionTableTest {
+
+    @Test
+    void storedEntriesAreFound() {
+        Random random = new Random(71);
+        TranspositionTable table = new TranspositionTable(1 << 12);
+        int[] bounds = {TranspositionTable.EXACT, TranspositionTable.LOWER, TranspositionTable.UPPER};
+        for (int i = 0; i < 100; i++) {
+            // keys of different buckets, so none of them replaces another
+            long key = random.nextLong() & ~0x7FFL | i;
+            int depth = random.nextInt(61);
+            int bound = bounds[i % 3];
+            int score = random.nextInt(200_001) - 100_000;
+            int move = random.nextInt(65) - 1;
+            table.store(key, depth, bound, score, move);
+
+            long entry = table.probe(key);
+            assertEquals(score, TranspositionTable.score(entry), "entry " + i);
+            assertEquals(depth, TranspositionTable.depth(entry), "entry " + i);
+            assertEquals(bound, TranspositionTable.bound(entry), "entry " + i);
+            assertEquals(move, TranspositionTable.move(entry), "entry " + i);
+        }
+        assertEquals(1.0, table.hitRate());
+    }
+
+    @Test
+    void otherKeysOfTheBucketAreNotFound() {
+        TranspositionTable table = new TranspositionTable(4);
+        table.store(2, 5, TranspositionTable.EXACT, 17, 10);
+        assertEquals(0, table.probe(4));
+        assertEquals(0, table.probe(2 | 1L << 40));
+        assertEquals(17, TranspositionTable.score(table.probe(2)));
+        assertEquals(0, table.probe(3));
+
+        // the misses of the occupied bucket are collisions, the miss of the empty one is not
+        assertEquals(0.5, table.collisionRate(), 1e-9);
+        assertEquals(0.25, table.hitRate(), 1e-9);
+    }
+
+    @Test
+    void deeperEntryIsKeptWithinASearch() {
+        // one bucket of two slots
+        TranspositionTable table = new TranspositionTable(2);
+        table.store(1, 8, TranspositionTable.EXACT, 1, 0);
+        table.store(2, 3, TranspositionTable.EXACT, 2, 0);
+        table.store(3, 4, TranspositionTable.EXACT, 3, 0);
+        // the shallower entries share the second slot, the last one stays
+        assertEquals(1, TranspositionTable.score(table.probe(1)));
+        assertEquals(0, table.probe(2));
+        assertEquals(3, TranspositionTable.score(table.probe(3)));
+
+        // an entry at least as deep takes the first slot
+        table.store(4, 8, TranspositionTable.EXACT, 4, 0);
+        assertEquals(0, table.probe(1));
+        assertEquals(4, TranspositionTable.score(table.probe(4)));
+        assertEquals(3, TranspositionTable.score(table.probe(3)));
+    }
+
+    @Test
+    void samePositionIsUpdatedInPlace() {
+        TranspositionTable table = new TranspositionTable(2);
+        table.store(1, 8, TranspositionTable.LOWER, 100, 5);
+        table.store(1, 2, TranspositionTable.UPPER, -100, 6);
+        long entry = table.probe(1);
+        assertEquals(2, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(entry));
+        assertEquals(-100, TranspositionTable.score(entry));
+        assertEquals(6, TranspositionTable.move(entry));
+    }
+
+    @Test
+    void entriesOfEarlierSearchesAreReplaced() {
+        TranspositionTable table = new TranspositionTable(2);
+        table.store(1, 20, TranspositionTable.EXACT, 1, 0);
+        table.newSearch();
+        table.store(2, 1, TranspositionTable.EXACT, 2, 0);
+        assertEquals(0, table.probe(1));
+        assertEquals(2, TranspositionTable.score(table.probe(2)));
+    }
+
+    @Test
+    void clearRemovesEveryEntry() {
+        TranspositionTable table = new TranspositionTable(1 << 4);
+        for (long key = 1; key <= 16; key++) {
+            table.store(key, 1, TranspositionTable.EXACT, (int) key, 0);
+        }
+        table.clear();
+        for (long key = 1; key <= 16; key++) {
+            assertEquals(0, table.probe(key), "key " + key);
+        }
+    }
+
+    @Test
+    void sizeMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(12));
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(1));
+        assertEquals(0, new TranspositionTable(2).probe(1));
+    }
+}